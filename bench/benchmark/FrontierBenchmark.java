@@ -0,0 +1,137 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import heuristic.Manhattan;
+import search.BoardLayout;
+import search.Node;
+import util.BucketQueue;
+import util.ClosedSet;
+import util.MyQueue;
+import util.MyStack;
+import util.OrderedCollection;
+import util.PriorityQueue;
+
+/**
+ * Measures the frontier and closed-set structures in isolation. Each
+ * invocation pushes a fixed batch of distinct nodes and pops them all again,
+ * or adds them all to a fresh closed set; scores are per batch.
+ *
+ * The nodes are the first BATCH states reached by a breadth-first search from
+ * the goal, so their depths and estimates spread the way they do in a real
+ * search. Heuristics cache their estimate in the node, so the estimates are
+ * cleared before every invocation; otherwise the informed frontiers would
+ * only read the cache after the first one, and the heuristic's cost would
+ * never be measured. Parents come before their successors in the batch, so
+ * estimates are derived incrementally as in a search.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FrontierBenchmark {
+	private static final int BATCH = 4096;
+
+	/**
+	 * A batch of distinct nodes of one board shape
+	 */
+	@State(Scope.Thread)
+	public static class Batch {
+		@Param({"3x3", "4x4"})
+		public String board;
+
+		BoardLayout layout;
+		Node[] nodes;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			int side = Integer.parseInt(board.substring(0, board.indexOf('x')));
+			layout = BoardLayout.of(side, side);
+			nodes = new Node[BATCH];
+			ClosedSet seen = ClosedSet.forLayout(layout);
+			nodes[0] = new Node(layout.getGoalBoard());
+			seen.add(nodes[0]);
+			int count = 1;
+			for (int head = 0; count < BATCH; head++) {
+				for (Node successor : nodes[head].getSuccessors()) {
+					if (successor != null && count < BATCH && seen.add(successor)) {
+						nodes[count++] = successor;
+					}
+				}
+			}
+		}
+
+		@Setup(Level.Invocation)
+		public void clearEstimates() {
+			for (Node u : nodes) {
+				u.setEstimate(Node.NO_ESTIMATE);
+			}
+		}
+	}
+
+	/**
+	 * The frontier structure to measure
+	 */
+	@State(Scope.Thread)
+	public static class Frontier {
+		@Param({"MyQueue", "MyStack", "PriorityQueue", "BucketQueue"})
+		public String frontier;
+
+		OrderedCollection create() {
+			switch (frontier) {
+			case "MyQueue":
+				return new MyQueue();
+			case "MyStack":
+				return new MyStack();
+			case "PriorityQueue":
+				return new PriorityQueue(new Manhattan());
+			case "BucketQueue":
+				return new BucketQueue(new Manhattan());
+			default:
+				throw new IllegalArgumentException("Unknown frontier " + frontier);
+			}
+		}
+	}
+
+	@Benchmark
+	public Node pushAndPop(Batch batch, Frontier frontier) {
+		OrderedCollection collection = frontier.create();
+		for (Node u : batch.nodes) {
+			collection.push(u);
+		}
+		Node last = null;
+		while (!collection.isEmpty()) {
+			last = collection.pop();
+		}
+		return last;
+	}
+
+	@Benchmark
+	public int closedSet(Batch batch) {
+		ClosedSet closed = ClosedSet.forLayout(batch.layout);
+		for (Node u : batch.nodes) {
+			closed.add(u);
+		}
+		int found = 0;
+		for (Node u : batch.nodes) {
+			if (closed.contains(u)) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
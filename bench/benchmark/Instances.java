@@ -0,0 +1,115 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import search.BoardLayout;
+import search.MoveTable;
+import search.Node;
+
+/**
+ * Fixed sets of puzzles for the benchmarks. Every set is drawn from a random
+ * generator with a fixed seed, so a set is the same on every run and results
+ * from different commits are comparable.
+ *
+ * 8-puzzle sets are graded by exact optimal solution length, looked up in the
+ * {@link MoveTable}. 15-puzzle sets are graded by the length of the random
+ * walk from the goal that produced them, since their optimal lengths are too
+ * costly to compute up front; the walk never undoes its previous move.
+ */
+public final class Instances {
+	/** The number of puzzles in every set. */
+	public static final int SET_SIZE = 32;
+
+	private static final long SEED = 431L;
+
+	/**
+	 * The difficulty grades of a set
+	 */
+	public enum Difficulty {
+		/** 8-puzzles solved in 8 to 14 moves; 15-puzzles 20 moves from the goal. */
+		EASY(8, 14, 20),
+		/** 8-puzzles solved in 15 to 21 moves; 15-puzzles 35 moves from the goal. */
+		MEDIUM(15, 21, 35),
+		/** 8-puzzles solved in 22 to 31 moves; 15-puzzles 50 moves from the goal. */
+		HARD(22, 31, 50);
+
+		private final int minMoves;
+		private final int maxMoves;
+		private final int walk;
+
+		Difficulty(int minMoves, int maxMoves, int walk) {
+			this.minMoves = minMoves;
+			this.maxMoves = maxMoves;
+			this.walk = walk;
+		}
+	}
+
+	private Instances() {}
+
+	/**
+	 * Returns a set of solvable 8-puzzles whose optimal solutions are within
+	 * the difficulty's range
+	 * @param difficulty the grade of the set
+	 * @return SET_SIZE boards, the same on every call
+	 */
+	public static List<int[][]> eightPuzzles(Difficulty difficulty) {
+		BoardLayout layout = BoardLayout.of(3, 3);
+		MoveTable table = MoveTable.of(layout);
+		Random random = new Random(SEED + difficulty.ordinal());
+		List<int[][]> set = new ArrayList<int[][]>(SET_SIZE);
+		int[] tiles = new int[layout.getCells()];
+		while (set.size() < SET_SIZE) {
+			for (int i = 0; i < tiles.length; i++) {
+				tiles[i] = i;
+			}
+			for (int i = tiles.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int t = tiles[i];
+				tiles[i] = tiles[j];
+				tiles[j] = t;
+			}
+			int[][] board = toBoard(tiles, 3, 3);
+			int moves = table.distance(new Node(board));
+			if (moves >= difficulty.minMoves && moves <= difficulty.maxMoves) {
+				set.add(board);
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Returns a set of 15-puzzles made by random walks from the goal
+	 * @param difficulty the grade of the set
+	 * @return SET_SIZE boards, the same on every call
+	 */
+	public static List<int[][]> fifteenPuzzles(Difficulty difficulty) {
+		Random random = new Random(SEED + 16 + difficulty.ordinal());
+		List<int[][]> set = new ArrayList<int[][]>(SET_SIZE);
+		Node goal = new Node(BoardLayout.of(4, 4).getGoalBoard());
+		while (set.size() < SET_SIZE) {
+			Node u = goal;
+			int back = -1;
+			for (int step = 0; step < difficulty.walk; ) {
+				int direction = random.nextInt(4);
+				Node next = direction == back ? null : u.move(direction);
+				if (next != null) {
+					u = next;
+					back = Node.inverseOf(direction);
+					step++;
+				}
+			}
+			set.add(u.getBoard());
+		}
+		return set;
+	}
+
+	private static int[][] toBoard(int[] tiles, int width, int height) {
+		int[][] board = new int[height][width];
+		for (int i = 0; i < tiles.length; i++) {
+			board[i / width][i % width] = tiles[i];
+		}
+		return board;
+	}
+}
@@ -0,0 +1,32 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every score is
+ * reported with its allocation rate. Arguments are passed on to JMH, e.g. a
+ * pattern such as "SearchBenchmark.eightPuzzle" to run only matching
+ * benchmarks, or "-p difficulty=HARD" to run only the hard sets.
+ */
+public class Main {
+
+	/**
+	 * Runs the benchmarks
+	 * @param args JMH command-line options
+	 * @throws RunnerException if a benchmark fails
+	 * @throws CommandLineOptionException if the options cannot be parsed
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
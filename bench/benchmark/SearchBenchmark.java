@@ -0,0 +1,138 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import heuristic.Heuristic;
+import heuristic.LinearConflict;
+import heuristic.Manhattan;
+import heuristic.Misplaced;
+import search.GraphSearch;
+import search.Strategy;
+
+/**
+ * Solves the fixed 8-puzzle and 15-puzzle sets (see {@link Instances}) with
+ * each strategy and heuristic. Every invocation solves the next puzzle of the
+ * set, so a score is an average over the whole set. Throughput is reported in
+ * solves per second and latency as a distribution of single solves.
+ *
+ * A configuration names the strategy and, for informed strategies, the
+ * heuristic, e.g. "ASTAR/Manhattan". BFS, DFS and IDDFS ignore heuristics,
+ * so they are only run once each.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SearchBenchmark {
+
+	/**
+	 * A solver and the 8-puzzle set it solves
+	 */
+	@State(Scope.Thread)
+	public static class EightPuzzle {
+		@Param({"BFS", "DFS", "IDDFS", "ASTAR/Misplaced", "ASTAR/Manhattan", "ASTAR/LinearConflict",
+				"BUCKET_ASTAR/Manhattan", "WEIGHTED_ASTAR/Manhattan", "IDA_STAR/Manhattan", "BIDIRECTIONAL_BFS", "TABLE"})
+		public String config;
+
+		@Param({"EASY", "MEDIUM", "HARD"})
+		public Instances.Difficulty difficulty;
+
+		GraphSearch search;
+		List<int[][]> puzzles;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			search = solver(config);
+			puzzles = Instances.eightPuzzles(difficulty);
+			// build the move table outside the measurement
+			search.solvePuzzle(puzzles.get(0));
+		}
+
+		int[][] nextPuzzle() {
+			int[][] puzzle = puzzles.get(next);
+			next = (next + 1) % puzzles.size();
+			return puzzle;
+		}
+	}
+
+	/**
+	 * A solver and the 15-puzzle set it solves. Only informed strategies with
+	 * heuristics strong enough to finish the harder sets are included.
+	 */
+	@State(Scope.Thread)
+	public static class FifteenPuzzle {
+		@Param({"ASTAR/Manhattan", "ASTAR/LinearConflict", "BUCKET_ASTAR/Manhattan",
+				"WEIGHTED_ASTAR/Manhattan", "IDA_STAR/Manhattan", "IDA_STAR/LinearConflict"})
+		public String config;
+
+		@Param({"EASY", "MEDIUM", "HARD"})
+		public Instances.Difficulty difficulty;
+
+		GraphSearch search;
+		List<int[][]> puzzles;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			search = solver(config);
+			puzzles = Instances.fifteenPuzzles(difficulty);
+		}
+
+		int[][] nextPuzzle() {
+			int[][] puzzle = puzzles.get(next);
+			next = (next + 1) % puzzles.size();
+			return puzzle;
+		}
+	}
+
+	@Benchmark
+	public String eightPuzzle(EightPuzzle state) {
+		return state.search.solvePuzzle(state.nextPuzzle());
+	}
+
+	@Benchmark
+	public String fifteenPuzzle(FifteenPuzzle state) {
+		return state.search.solvePuzzle(state.nextPuzzle());
+	}
+
+	/**
+	 * Creates a quiet solver from a configuration such as "ASTAR/Manhattan"
+	 */
+	static GraphSearch solver(String config) {
+		int slash = config.indexOf('/');
+		Strategy strategy = Strategy.valueOf(slash < 0 ? config : config.substring(0, slash));
+		Heuristic heuristic = slash < 0 ? null : heuristic(config.substring(slash + 1));
+		GraphSearch search = new GraphSearch(strategy, heuristic);
+		search.setVerbose(false);
+		return search;
+	}
+
+	private static Heuristic heuristic(String name) {
+		switch (name) {
+		case "Misplaced":
+			return new Misplaced();
+		case "Manhattan":
+			return new Manhattan();
+		case "LinearConflict":
+			return new LinearConflict();
+		default:
+			throw new IllegalArgumentException("Unknown heuristic " + name);
+		}
+	}
+}
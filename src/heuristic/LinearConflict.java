@@ -0,0 +1,227 @@
+package heuristic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import search.BoardLayout;
+import search.Node;
+
+/**
+ * Manhattan distance plus linear conflicts. Two tiles are in linear conflict if
+ * they are in the row (or column) they belong to but in reverse order, so one
+ * of them must leave the line and come back, costing two moves Manhattan
+ * distance does not count. For each line, the fewest tiles that must leave it
+ * is the number of its home tiles minus the longest run of them already in
+ * increasing goal order; the heuristic adds two moves per such tile.
+ *
+ * The conflict cost of a line depends only on its contents, so it is looked up
+ * in a table indexed by the packed tiles of the line, built once per board
+ * shape (the 3x3 and 4x4 tables when the class is loaded). Lines longer than
+ * four cells, and boards too large to pack, are evaluated directly. A
+ * successor's estimate is derived from its parent's by re-reading only the
+ * lines the moved tile and the blank touch.
+ */
+public class LinearConflict implements Heuristic {
+	private static final int MAX_TABLE_LINE = 4;
+	private static final Map<BoardLayout, Tables> tables = new ConcurrentHashMap<BoardLayout, Tables>();
+
+	static {
+		tablesFor(BoardLayout.of(3, 3));
+		tablesFor(BoardLayout.of(4, 4));
+	}
+
+	private Tables last;
+
+	public LinearConflict() {}
+
+	/**
+	 * Calculates the manhattan distance plus linear conflicts and returns a
+	 * heuristic measurement of the success of the given node.
+	 *
+	 * @param node the node to be evaluated
+	 * @return the estimate plus the cost (# of moves) from start to the node
+	 */
+	@Override
+	public int evaluate(Node node) {
+		int estimate = node.getEstimate();
+		if (estimate == Node.NO_ESTIMATE) {
+			Tables t = last;
+			if (t == null || t.layout != node.getLayout()) {
+				t = tablesFor(node.getLayout());
+				last = t;
+			}
+			Node parent = node.getParent();
+			if (parent != null && parent.getEstimate() != Node.NO_ESTIMATE) {
+				estimate = parent.getEstimate() + Manhattan.delta(node, parent) + t.conflictDelta(node, parent);
+			}
+			else {
+				estimate = Manhattan.distance(node) + t.conflicts(node);
+			}
+			node.setEstimate(estimate);
+		}
+		return estimate + node.getDepth();
+	}
+
+	/**
+	 * Returns the tables for a board shape, building them on first use
+	 */
+	private static Tables tablesFor(BoardLayout layout) {
+		Tables t = tables.get(layout);
+		if (t == null) {
+			t = new Tables(layout);
+			Tables raced = tables.putIfAbsent(layout, t);
+			if (raced != null) {
+				t = raced;
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * The conflict tables for one board shape. rows[r] is indexed by the packed
+	 * tiles of row r and cols[c] by the packed tiles of column c, top to bottom;
+	 * an entry is null if the line cannot be tabulated.
+	 */
+	private static final class Tables {
+		final BoardLayout layout;
+		final byte[][] rows;
+		final byte[][] cols;
+
+		Tables(BoardLayout layout) {
+			this.layout = layout;
+			rows = new byte[layout.getHeight()][];
+			cols = new byte[layout.getWidth()][];
+			for (int r = 0; r < rows.length; r++) {
+				rows[r] = build(layout, true, r, layout.getWidth());
+			}
+			for (int c = 0; c < cols.length; c++) {
+				cols[c] = build(layout, false, c, layout.getHeight());
+			}
+		}
+
+		/**
+		 * Returns the conflict cost of every line of a board
+		 */
+		int conflicts(Node node) {
+			int total = 0;
+			for (int r = 0; r < rows.length; r++) {
+				total += rowConflicts(node, r);
+			}
+			for (int c = 0; c < cols.length; c++) {
+				total += colConflicts(node, c);
+			}
+			return total;
+		}
+
+		/**
+		 * Returns the change in conflict cost from a parent to its successor.
+		 * A horizontal move reorders one row and changes the contents of two
+		 * columns; a vertical move reorders one column and changes two rows.
+		 */
+		int conflictDelta(Node node, Node parent) {
+			int from = parent.getBlank();
+			int to = node.getBlank();
+			int r1 = layout.rowOf(from), r2 = layout.rowOf(to);
+			int c1 = layout.colOf(from), c2 = layout.colOf(to);
+			int delta = rowConflicts(node, r1) - rowConflicts(parent, r1)
+					+ colConflicts(node, c1) - colConflicts(parent, c1);
+			if (r1 != r2) {
+				delta += rowConflicts(node, r2) - rowConflicts(parent, r2);
+			}
+			else {
+				delta += colConflicts(node, c2) - colConflicts(parent, c2);
+			}
+			return delta;
+		}
+
+		private int rowConflicts(Node node, int r) {
+			int width = layout.getWidth();
+			if (rows[r] == null) {
+				return lineConflicts(layout, true, r, line(node, r * width, 1, width));
+			}
+			long key = (node.getState() >>> (BoardLayout.BITS_PER_CELL * r * width)) & ((1L << (BoardLayout.BITS_PER_CELL * width)) - 1);
+			return rows[r][(int) key];
+		}
+
+		private int colConflicts(Node node, int c) {
+			int width = layout.getWidth();
+			if (cols[c] == null) {
+				return lineConflicts(layout, false, c, line(node, c, width, layout.getHeight()));
+			}
+			long state = node.getState();
+			long key = 0;
+			for (int i = 0; i < layout.getHeight(); i++) {
+				key |= (long) BoardLayout.tile(state, i * width + c) << (BoardLayout.BITS_PER_CELL * i);
+			}
+			return cols[c][(int) key];
+		}
+
+		/**
+		 * Reads the tiles of a line of a board
+		 */
+		private static int[] line(Node node, int first, int step, int length) {
+			int[] tiles = new int[length];
+			for (int i = 0; i < length; i++) {
+				tiles[i] = node.tileAt(first + i * step);
+			}
+			return tiles;
+		}
+	}
+
+	/**
+	 * Tabulates the conflict cost of a line for every possible packed content
+	 * @return the table, or null if the line is too long to tabulate or the
+	 * board too large to pack
+	 */
+	private static byte[] build(BoardLayout layout, boolean row, int line, int length) {
+		if (length > MAX_TABLE_LINE || !layout.isPacked()) {
+			return null;
+		}
+		byte[] table = new byte[1 << (BoardLayout.BITS_PER_CELL * length)];
+		int[] tiles = new int[length];
+		for (int key = 0; key < table.length; key++) {
+			for (int i = 0; i < length; i++) {
+				tiles[i] = BoardLayout.tile(key, i);
+			}
+			table[key] = (byte) lineConflicts(layout, row, line, tiles);
+		}
+		return table;
+	}
+
+	/**
+	 * Computes the conflict cost of a line: two moves for each home tile that
+	 * is not part of the longest run of home tiles in increasing goal order.
+	 * @param layout the board shape
+	 * @param row true for a row, false for a column
+	 * @param line the index of the row or column
+	 * @param tiles the tiles of the line, first cell first
+	 * @return the number of extra moves the line's conflicts force
+	 */
+	private static int lineConflicts(BoardLayout layout, boolean row, int line, int[] tiles) {
+		int length = tiles.length;
+		int[] order = new int[length]; // goal positions along the line of its home tiles
+		int[] longest = new int[length]; // longest increasing run ending at each of them
+		int count = 0;
+		int best = 0;
+		for (int i = 0; i < length; i++) {
+			int tile = tiles[i];
+			if (tile == 0 || tile >= layout.getCells()) {
+				continue;
+			}
+			int goal = layout.goalCell(tile);
+			if ((row ? layout.rowOf(goal) : layout.colOf(goal)) != line) {
+				continue;
+			}
+			order[count] = row ? layout.colOf(goal) : layout.rowOf(goal);
+			longest[count] = 1;
+			for (int j = 0; j < count; j++) {
+				if (order[j] < order[count] && longest[j] + 1 > longest[count]) {
+					longest[count] = longest[j] + 1;
+				}
+			}
+			best = Math.max(best, longest[count]);
+			count++;
+		}
+		return 2 * (count - best);
+	}
+}
@@ -1,8 +1,11 @@
 package heuristic;
+import search.BoardLayout;
 import search.Node;
 
 /**
 * Calcualtes the manhattan distance of a given node in regards to the goal node.
+* The distance of a successor is derived from its parent's: a move changes the
+* position of only one tile, so only that tile's distance is recomputed.
 *
 */
 public class Manhattan implements Heuristic{
@@ -10,24 +13,53 @@ public class Manhattan implements Heuristic{
   public Manhattan(){}
 
     public int evaluate(Node node){
-      int manhattanDist = 0;
-      int[][] board = node.getBoard();
-      int[][] goal = {{1,2,3}, {4,5,6}, {7,8,0}};
-      for (int i = 0; i < 3; i++){
-        for (int j = 0; j < 3; j++){
-          int num = board[i][j];
-          if(num !=0){
-            //calcualte where the num should be
-            int goalRow = (num - 1) / 3;
-            int goalCol = (num - 1) % 3;
-            //calculate manhattan distance
-            int manhattanX = Math.abs(i - goalRow);
-            int manhattanY = Math.abs(j - goalCol);
-            manhattanDist += manhattanX + manhattanY;
-          }
+      int manhattanDist = node.getEstimate();
+      if(manhattanDist == Node.NO_ESTIMATE){
+        Node parent = node.getParent();
+        if(parent != null && parent.getEstimate() != Node.NO_ESTIMATE){
+          manhattanDist = parent.getEstimate() + delta(node, parent);
+        }
+        else{
+          manhattanDist = distance(node);
         }
+        node.setEstimate(manhattanDist);
       }
       //return the estimate plus the cost (# of moves) from start to this node.
       return manhattanDist + node.getDepth();
     }
+
+    /**
+    * Calculates the manhattan distance of every tile from its goal cell.
+    * @param node the node to be evaluated
+    * @return the sum of the manhattan distances of the tiles
+    */
+    static int distance(Node node){
+      int manhattanDist = 0;
+      BoardLayout layout = node.getLayout();
+      if (!layout.isPacked()){
+        for (int cell = 0; cell < layout.getCells(); cell++){
+          manhattanDist += layout.distance(node.tileAt(cell), cell);
+        }
+        return manhattanDist;
+      }
+      long board = node.getState();
+      for (int cell = 0; cell < layout.getCells(); cell++, board >>>= BoardLayout.BITS_PER_CELL){
+        manhattanDist += layout.distance((int) (board & 0xF), cell);
+      }
+      return manhattanDist;
+    }
+
+    /**
+    * Calculates the change in manhattan distance from a parent to its successor.
+    * The tile that moved went from the successor's blank cell to the parent's.
+    * @param node the successor
+    * @param parent the node it was generated from
+    * @return the successor's distance minus the parent's
+    */
+    static int delta(Node node, Node parent){
+      BoardLayout layout = node.getLayout();
+      int to = parent.getBlank();
+      int tile = node.tileAt(to);
+      return layout.distance(tile, to) - layout.distance(tile, node.getBlank());
+    }
   }
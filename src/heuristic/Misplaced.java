@@ -1,4 +1,5 @@
 package heuristic;
+import search.BoardLayout;
 import search.Node;
 
 /**
@@ -7,6 +8,8 @@ import search.Node;
  */
 public class Misplaced implements Heuristic{
 
+  private static final long LOW_BITS = 0x1111111111111111L;
+
   public Misplaced(){}
 
   /**
@@ -18,13 +21,18 @@ public class Misplaced implements Heuristic{
    * plus the number of misplaced tiles.
    */
   public int evaluate(Node node){
+    BoardLayout layout = node.getLayout();
     int numMisplaced = 0;
-    int[][] board = node.getBoard();
-    int[][] goal = {{1,2,3}, {4,5,6}, {7,8,0}};
-    for (int i = 0; i < 3; i++){
-      for (int j = 0; j < 3; j++){
-        //com
-        if(board[i][j] != goal[i][j]){
+    if (layout.isPacked()){
+      //cells that differ from the goal have a non-zero nibble in the xor
+      long diff = node.getState() ^ layout.getGoal();
+      diff |= diff >>> 2;
+      diff |= diff >>> 1;
+      numMisplaced = Long.bitCount(diff & LOW_BITS);
+    }
+    else{
+      for (int cell = 0; cell < layout.getCells(); cell++){
+        if (node.tileAt(cell) != (cell + 1) % layout.getCells()){
           numMisplaced++;
         }
       }
@@ -0,0 +1,387 @@
+package heuristic;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import search.BoardLayout;
+import search.Node;
+
+/**
+ * An additive heuristic built from disjoint pattern databases. The tiles are
+ * partitioned into patterns; for each pattern a table holds, for every placement
+ * of the pattern's tiles, the fewest moves of those tiles needed to bring them
+ * home (moves of other tiles are free). Because no move is counted by two
+ * patterns, the table values can be added and the sum is still admissible.
+ *
+ * Tables are built once by a breadth-first search backwards from the goal and
+ * written to a file. Loading maps the file read-only, so the pages are shared
+ * between JVMs and nothing needs to be rebuilt at startup.
+ */
+public class PatternDatabase implements Heuristic {
+	private static final int MAGIC = 0x50444231; // "PDB1"
+	private static final int UNSEEN = 0xFF;
+
+	/** The 6-6-3 partition of the 15-puzzle. */
+	public static final int[][] FIFTEEN_PUZZLE_663 = {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+	/** A 4-4 partition of the 8-puzzle. */
+	public static final int[][] EIGHT_PUZZLE_44 = {{1, 2, 4, 5}, {3, 6, 7, 8}};
+
+	private final BoardLayout layout;
+	private final int[][] patterns;
+	private final int[] offsets;
+	private final ByteBuffer tables;
+
+	private PatternDatabase(BoardLayout layout, int[][] patterns, ByteBuffer tables, int tablesStart) {
+		this.layout = layout;
+		this.patterns = patterns;
+		this.tables = tables;
+		offsets = new int[patterns.length];
+		long offset = tablesStart;
+		for (int p = 0; p < patterns.length; p++) {
+			offsets[p] = (int) offset;
+			offset += tableSize(layout.getCells(), patterns[p].length);
+		}
+	}
+
+	/**
+	 * Returns the sum of the pattern distances plus the cost (# of moves) from
+	 * the start to this node.
+	 * @param node the node to be evaluated
+	 * @return an admissible estimate of the cost of a solution through the node
+	 */
+	@Override
+	public int evaluate(Node node) {
+		if (node.getLayout() != layout) {
+			throw new IllegalArgumentException("Pattern database is for " + layout.getHeight() + "x" + layout.getWidth() + " boards");
+		}
+		if (node.getEstimate() != Node.NO_ESTIMATE) {
+			return node.getEstimate() + node.getDepth();
+		}
+		// where[tile] is the cell holding the tile, 4 bits per tile
+		long where = 0;
+		for (int cell = 0; cell < layout.getCells(); cell++) {
+			where |= (long) cell << (BoardLayout.BITS_PER_CELL * node.tileAt(cell));
+		}
+		int estimate = 0;
+		for (int p = 0; p < patterns.length; p++) {
+			int[] pattern = patterns[p];
+			int used = 0;
+			int index = 0;
+			for (int i = 0; i < pattern.length; i++) {
+				int cell = BoardLayout.tile(where, pattern[i]);
+				index = index * (layout.getCells() - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+				used |= 1 << cell;
+			}
+			estimate += tables.get(offsets[p] + index) & 0xFF;
+		}
+		node.setEstimate(estimate);
+		return estimate + node.getDepth();
+	}
+
+	/**
+	 * Returns the board shape the tables were built for
+	 * @return the board layout
+	 */
+	public BoardLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Loads pattern databases from a file if it exists, otherwise builds them and
+	 * writes them to the file first.
+	 * @param file the table file
+	 * @param layout the board shape
+	 * @param patterns the partition to build if the file does not exist
+	 * @return the loaded pattern databases
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static PatternDatabase open(Path file, BoardLayout layout, int[][] patterns) throws IOException {
+		if (!Files.exists(file)) {
+			build(layout, patterns).write(file);
+		}
+		PatternDatabase pdb = load(file);
+		if (pdb.layout != layout || !Arrays.deepEquals(pdb.patterns, patterns)) {
+			throw new IOException(file + " holds a different partition");
+		}
+		return pdb;
+	}
+
+	/**
+	 * Maps a file written by {@link #write(Path)} into memory.
+	 * @param file the table file
+	 * @return the pattern databases backed by the mapped file
+	 * @throws IOException if the file cannot be read or is not a pattern database
+	 */
+	public static PatternDatabase load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+				throw new IOException(file + " is not a pattern database");
+			}
+			BoardLayout layout = BoardLayout.of(buffer.getInt(), buffer.getInt());
+			int[][] patterns = new int[buffer.getInt()][];
+			long expected = 0;
+			for (int p = 0; p < patterns.length; p++) {
+				patterns[p] = new int[buffer.getInt()];
+				for (int i = 0; i < patterns[p].length; i++) {
+					patterns[p][i] = buffer.getInt();
+				}
+				expected += tableSize(layout.getCells(), patterns[p].length);
+			}
+			if (buffer.remaining() != expected) {
+				throw new IOException(file + " is truncated");
+			}
+			return new PatternDatabase(layout, patterns, buffer, buffer.position());
+		}
+	}
+
+	/**
+	 * Writes the tables to a file that can later be mapped with {@link #load(Path)}.
+	 * @param file the table file to create or replace
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		try (OutputStream stream = Files.newOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(MAGIC);
+			out.writeInt(layout.getWidth());
+			out.writeInt(layout.getHeight());
+			out.writeInt(patterns.length);
+			for (int[] pattern : patterns) {
+				out.writeInt(pattern.length);
+				for (int tile : pattern) {
+					out.writeInt(tile);
+				}
+			}
+			ByteBuffer data = tables.duplicate();
+			data.position(offsets[0]);
+			byte[] chunk = new byte[1 << 16];
+			while (data.hasRemaining()) {
+				int n = Math.min(chunk.length, data.remaining());
+				data.get(chunk, 0, n);
+				out.write(chunk, 0, n);
+			}
+		}
+	}
+
+	/**
+	 * Builds the tables for a partition of the tiles in memory.
+	 * @param layout the board shape
+	 * @param patterns disjoint sets of tiles; tiles not in any pattern are ignored
+	 * @return the pattern databases
+	 */
+	public static PatternDatabase build(BoardLayout layout, int[][] patterns) {
+		int cells = layout.getCells();
+		if (!layout.isPacked()) {
+			throw new IllegalArgumentException("Pattern databases need boards of at most " + BoardLayout.MAX_PACKED_CELLS + " cells");
+		}
+		if (patterns.length == 0) {
+			throw new IllegalArgumentException("At least one pattern is required");
+		}
+		boolean[] assigned = new boolean[cells];
+		long total = 0;
+		for (int[] pattern : patterns) {
+			if (pattern.length == 0 || pattern.length >= cells) {
+				throw new IllegalArgumentException("Patterns must hold between 1 and " + (cells - 1) + " tiles");
+			}
+			for (int tile : pattern) {
+				if (tile <= 0 || tile >= cells || assigned[tile]) {
+					throw new IllegalArgumentException("Patterns must be disjoint sets of tiles 1.." + (cells - 1));
+				}
+				assigned[tile] = true;
+			}
+			total += tableSize(cells, pattern.length);
+		}
+		if (total > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Pattern databases too large: " + total + " bytes");
+		}
+		ByteBuffer tables = ByteBuffer.allocate((int) total);
+		for (int[] pattern : patterns) {
+			tables.put(buildTable(layout, pattern));
+		}
+		int[][] copy = new int[patterns.length][];
+		for (int p = 0; p < patterns.length; p++) {
+			copy[p] = patterns[p].clone();
+		}
+		return new PatternDatabase(layout, copy, tables, 0);
+	}
+
+	/**
+	 * Builds the table for one pattern. The search runs over abstract states made
+	 * of the cells of the pattern's tiles and the cell of the blank, packed 4
+	 * bits per cell with the blank in the lowest bits. It proceeds in layers of
+	 * equal cost: moving the blank into a cell not held by a pattern tile costs
+	 * nothing and stays in the current layer, moving a pattern tile costs one
+	 * and goes to the next. A placement's distance is the first layer in which
+	 * it appears with any position of the blank.
+	 */
+	private static byte[] buildTable(BoardLayout layout, int[] pattern) {
+		int cells = layout.getCells();
+		int k = pattern.length;
+		byte[] table = new byte[(int) tableSize(cells, k)];
+		Arrays.fill(table, (byte) UNSEEN);
+		long[] visited = new long[(int) ((table.length * (long) cells + 63) >>> 6)];
+		long[] queued = new long[visited.length];
+
+		long start = layout.goalCell(0);
+		for (int i = 0; i < k; i++) {
+			start |= (long) layout.goalCell(pattern[i]) << (BoardLayout.BITS_PER_CELL * (i + 1));
+		}
+		LongList current = new LongList();
+		LongList next = new LongList();
+		next.add(start);
+
+		for (int distance = 0; next.size > 0; distance++) {
+			if (distance >= UNSEEN) {
+				throw new IllegalStateException("Pattern distance does not fit in a byte");
+			}
+			LongList swap = current;
+			current = next;
+			next = swap;
+			next.size = 0;
+			Arrays.fill(queued, 0);
+
+			// visit the layer, extending it with every state reachable at no cost
+			for (int q = 0; q < current.size; q++) {
+				long state = current.items[q];
+				int index = index(state, k, cells);
+				long key = (long) index * cells + (state & 0xF);
+				if (!mark(visited, key)) {
+					continue;
+				}
+				if ((table[index] & 0xFF) == UNSEEN) {
+					table[index] = (byte) distance;
+				}
+				int blank = (int) (state & 0xF);
+				for (int direction = 0; direction < 4; direction++) {
+					int to = layout.neighbour(direction, blank);
+					if (to < 0) {
+						continue;
+					}
+					int moved = patternTileAt(state, k, to);
+					long successor = (state & ~0xFL) | to;
+					if (moved < 0) {
+						if (!isMarked(visited, (long) index * cells + to)) {
+							current.add(successor);
+						}
+					}
+					else {
+						int shift = BoardLayout.BITS_PER_CELL * (moved + 1);
+						successor = (successor & ~(0xFL << shift)) | ((long) blank << shift);
+						long successorKey = (long) index(successor, k, cells) * cells + to;
+						if (!isMarked(visited, successorKey) && mark(queued, successorKey)) {
+							next.add(successor);
+						}
+					}
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the position within the pattern of the tile at a cell
+	 * @return the position in the pattern, or -1 if no pattern tile is at the cell
+	 */
+	private static int patternTileAt(long state, int k, int cell) {
+		for (int i = 0; i < k; i++) {
+			if (((state >>> (BoardLayout.BITS_PER_CELL * (i + 1))) & 0xF) == cell) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Ranks the cells of the pattern tiles of an abstract state
+	 */
+	private static int index(long state, int k, int cells) {
+		int used = 0;
+		int index = 0;
+		for (int i = 0; i < k; i++) {
+			int cell = (int) ((state >>> (BoardLayout.BITS_PER_CELL * (i + 1))) & 0xF);
+			index = index * (cells - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+			used |= 1 << cell;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the number of placements of k tiles on a board: cells!/(cells-k)!
+	 */
+	private static long tableSize(int cells, int k) {
+		long size = 1;
+		for (int i = 0; i < k; i++) {
+			size *= cells - i;
+		}
+		return size;
+	}
+
+	private static boolean mark(long[] bits, long key) {
+		long bit = 1L << key;
+		int word = (int) (key >>> 6);
+		if ((bits[word] & bit) != 0) {
+			return false;
+		}
+		bits[word] |= bit;
+		return true;
+	}
+
+	private static boolean isMarked(long[] bits, long key) {
+		return (bits[(int) (key >>> 6)] & (1L << key)) != 0;
+	}
+
+	/**
+	 * A growable list of longs, used for the layers of the table search.
+	 */
+	private static class LongList {
+		long[] items = new long[1024];
+		int size;
+
+		void add(long item) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+			}
+			items[size++] = item;
+		}
+	}
+
+	/**
+	 * Builds the pattern databases for a board and writes them to a file.
+	 * Command-line arguments are the file, the width and the height; the 4x4 and
+	 * 3x3 boards use the partitions defined above.
+	 * @param args The command-line arguments
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage: java heuristic.PatternDatabase <file> <width> <height>");
+			System.exit(1);
+		}
+		BoardLayout layout = BoardLayout.of(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+		int[][] patterns;
+		if (layout.getWidth() == 4 && layout.getHeight() == 4) {
+			patterns = FIFTEEN_PUZZLE_663;
+		}
+		else if (layout.getWidth() == 3 && layout.getHeight() == 3) {
+			patterns = EIGHT_PUZZLE_44;
+		}
+		else {
+			System.err.println("No default partition for a " + args[2] + "x" + args[1] + " board");
+			System.exit(1);
+			return;
+		}
+		long start = System.currentTimeMillis();
+		build(layout, patterns).write(Path.of(args[0]));
+		System.out.println("Built " + args[0] + " in " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
@@ -0,0 +1,60 @@
+package heuristic;
+
+import search.Node;
+
+/**
+ * Inflates another heuristic's estimate by a constant weight, for weighted A*:
+ * a node is ranked by g + w * h rather than g + h, which leans the search
+ * toward nodes that look close to the goal. If the underlying estimate is
+ * admissible, a solution found with weight w is at most w times longer than
+ * the shortest one. The inflated estimate is rounded down, which keeps that
+ * bound.
+ *
+ * Weighted estimates are not admissible, so this heuristic is meant for
+ * ordering a frontier, not for strategies that rely on admissibility to stop.
+ */
+public class Weighted implements Heuristic {
+	private final Heuristic heuristic;
+	private final double weight;
+
+	/**
+	 * Constructs a weighted heuristic
+	 * @param heuristic a heuristic returning f-costs, g + h
+	 * @param weight the factor applied to h, at least 1
+	 */
+	public Weighted(Heuristic heuristic, double weight) {
+		if (!(weight >= 1)) {
+			throw new IllegalArgumentException("Weight must be at least 1: " + weight);
+		}
+		this.heuristic = heuristic;
+		this.weight = weight;
+	}
+
+	/**
+	 * Returns g + w * h for a node
+	 * @param node the node to be evaluated
+	 * @return the weighted f-cost of the node
+	 */
+	@Override
+	public int evaluate(Node node) {
+		int depth = node.getDepth();
+		int estimate = heuristic.evaluate(node) - depth;
+		return depth + (int) (weight * estimate);
+	}
+
+	/**
+	 * Returns the heuristic being weighted
+	 * @return the underlying heuristic
+	 */
+	public Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+	/**
+	 * Returns the factor applied to the estimate
+	 * @return the weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+}
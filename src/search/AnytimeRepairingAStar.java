@@ -0,0 +1,276 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import heuristic.Heuristic;
+import heuristic.Weighted;
+import util.PriorityQueue;
+
+/**
+ * Implements anytime repairing A* (ARA*). A weighted A* search with a large
+ * weight finds a first solution quickly; the weight is then lowered step by
+ * step and each round repairs the previous search rather than starting over,
+ * so the solution keeps getting shorter until the deadline passes or it is
+ * proven shortest.
+ *
+ * Every state keeps the cheapest path to it found so far. A state reached by a
+ * cheaper path after it was expanded in the current round is set aside and
+ * only queued again for the next round, which keeps each round a weighted A*
+ * search with its usual guarantee. After each round the search knows a bound
+ * on how much longer than the shortest its solution can be: the cost of the
+ * solution divided by the smallest g + h among the states it still has to
+ * expand. The bound is 1 when the solution is shortest. The heuristic must be
+ * admissible for the bounds to hold.
+ */
+public class AnytimeRepairingAStar {
+	/** Number of expansions between two checks of the deadline, which also check for cancellation. */
+	private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+	private final Heuristic heuristic;
+	private final double initialWeight;
+	private final double weightStep;
+	private SearchListener listener;
+	private Map<Node, Node> best;
+	private Set<Node> closed;
+	private List<Node> inconsistent;
+	private PriorityQueue open;
+	private Node goal;
+	private Node reported;
+	private double bound;
+	private long expanded;
+	private long generated;
+	private long pruned;
+	private int peakFrontier;
+
+	/**
+	 * Constructs a search that starts with the given weight and lowers it
+	 * after each solution
+	 * @param heuristic an admissible heuristic returning f-costs, g + h
+	 * @param initialWeight the weight of the first round, at least 1
+	 * @param weightStep the amount the weight is lowered by after each round, more than 0
+	 */
+	public AnytimeRepairingAStar(Heuristic heuristic, double initialWeight, double weightStep) {
+		if (!(initialWeight >= 1)) {
+			throw new IllegalArgumentException("Weight must be at least 1: " + initialWeight);
+		}
+		if (!(weightStep > 0)) {
+			throw new IllegalArgumentException("Weight step must be positive: " + weightStep);
+		}
+		this.heuristic = heuristic;
+		this.initialWeight = initialWeight;
+		this.weightStep = weightStep;
+	}
+
+	/**
+	 * Sets a listener told of every expansion, generated node and pruned
+	 * duplicate, and of each shorter solution as it is found
+	 * @param listener the listener, or null for none
+	 */
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Searches for the goal from the initial state, improving the solution
+	 * until the deadline. A first solution is always returned, even if finding
+	 * it takes past the deadline. The puzzle must be solvable.
+	 *
+	 * @param initialState
+	 * 		The initial starting state
+	 * @param deadline
+	 * 		The value of {@link System#nanoTime()} after which no more improvements are searched for
+	 * @return
+	 * 		The goal node of the shortest solution found, whose parent chain leads back to the initial state
+	 */
+	public Node search(Node initialState, long deadline) {
+		best = new HashMap<Node, Node>();
+		closed = new HashSet<Node>();
+		inconsistent = new ArrayList<Node>();
+		goal = null;
+		reported = null;
+		bound = Double.POSITIVE_INFINITY;
+		expanded = 0;
+		generated = 0;
+		pruned = 0;
+		peakFrontier = 0;
+
+		if (initialState.isGoal()) {
+			best.put(initialState, initialState);
+			goal = initialState;
+			tightenBound(new ArrayList<Node>(), 1);
+			return finish();
+		}
+		double weight = initialWeight;
+		open = new PriorityQueue(new Weighted(heuristic, weight));
+		best.put(initialState, initialState);
+		open.push(initialState);
+		while (true) {
+			boolean finished = improvePath(deadline);
+			if (goal == null) {
+				return null; // every reachable state was expanded
+			}
+			// every state still to be expanded, in this round or the next
+			List<Node> pending = open.elements();
+			pending.addAll(inconsistent);
+			inconsistent.clear();
+			tightenBound(pending, finished ? weight : Double.POSITIVE_INFINITY);
+			if (!finished || bound <= 1 || System.nanoTime() - deadline > 0) {
+				return finish();
+			}
+			weight = Math.max(1, weight - weightStep);
+			open = new PriorityQueue(new Weighted(heuristic, weight));
+			for (Node u : pending) {
+				open.push(u);
+			}
+			closed.clear();
+		}
+	}
+
+	/**
+	 * Returns the bound proven by the last search: the solution it returned is
+	 * at most this many times longer than the shortest one
+	 * @return the suboptimality bound, 1 if the solution is shortest
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * Returns the number of nodes the last search expanded, counting states
+	 * expanded again in later rounds
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the number of successors the last search generated
+	 * @return the number of generated nodes
+	 */
+	public long getNodesGenerated() {
+		return generated;
+	}
+
+	/**
+	 * Returns the number of generated nodes the last search discarded because
+	 * their state had already been reached by a path at least as short
+	 * @return the number of duplicates pruned
+	 */
+	public long getDuplicatesPruned() {
+		return pruned;
+	}
+
+	/**
+	 * Returns the largest number of nodes the frontier held at once
+	 * @return the peak frontier size
+	 */
+	public int getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	/**
+	 * Returns the number of distinct states the last search reached
+	 * @return the number of states with a known path
+	 */
+	public int getStatesSeen() {
+		return best.size();
+	}
+
+	/**
+	 * Runs one round of weighted A*, until no state on the frontier could lead
+	 * to a solution shorter than the current one under the round's weight.
+	 *
+	 * @param deadline the time after which the round is abandoned, once a solution is known
+	 * @return true if the round finished, false if it was abandoned
+	 */
+	private boolean improvePath(long deadline) {
+		while (!open.isEmpty() && (goal == null || open.minPriority() < goal.getDepth())) {
+			if ((++expanded & (DEADLINE_CHECK_INTERVAL - 1)) == 0) {
+				GraphSearch.checkCancelled();
+				if (goal != null && System.nanoTime() - deadline > 0) {
+					return false;
+				}
+			}
+			Node u = open.pop();
+			closed.add(u);
+			if (listener != null) {
+				listener.onExpand(u);
+			}
+			for (int direction = 0; direction < 4; direction++) {
+				Node successor = u.move(direction);
+				if (successor == null) {
+					continue;
+				}
+				generated++;
+				if (listener != null) {
+					listener.onGenerate(successor);
+				}
+				Node known = best.get(successor);
+				if (known != null && known.getDepth() <= successor.getDepth()) {
+					pruned++;
+					if (listener != null) {
+						listener.onDuplicate(successor);
+					}
+					continue;
+				}
+				best.put(successor, successor);
+				if (successor.isGoal()) {
+					goal = successor; // never expanded, since no path through it can be shorter
+				}
+				else if (closed.contains(successor)) {
+					inconsistent.add(successor);
+				}
+				else {
+					open.push(successor);
+				}
+			}
+			peakFrontier = Math.max(peakFrontier, open.size() + inconsistent.size());
+		}
+		return true;
+	}
+
+	/**
+	 * Tells the listener the search is over and returns the solution
+	 */
+	private Node finish() {
+		if (listener != null) {
+			listener.onGoal(goal);
+		}
+		return goal;
+	}
+
+	/**
+	 * Lowers the bound after a round and reports the solution if it, or its
+	 * bound, improved. The bound holds at any time, not only between rounds:
+	 * some state on a shortest path always waits in the open or inconsistent
+	 * list with its shortest g, or else the solution is already shortest.
+	 *
+	 * @param pending the states not yet expanded with their cheapest known path
+	 * @param weight the weight of the round if it finished, which bounds its solution
+	 */
+	private void tightenBound(List<Node> pending, double weight) {
+		int cost = goal.getDepth();
+		int lowest = cost;
+		for (Node u : pending) {
+			// the inconsistent list may hold a state more than once, all but one with an outdated path
+			if (best.get(u) == u) {
+				lowest = Math.min(lowest, heuristic.evaluate(u));
+			}
+		}
+		double proven = lowest == 0 ? 1 : Math.min(weight, (double) cost / lowest);
+		if (proven < bound || goal != reported) {
+			// a shorter solution keeps the bound proven for a longer one
+			bound = Math.min(bound, proven);
+			reported = goal;
+			if (listener != null) {
+				listener.onImprovement(goal, bound);
+			}
+		}
+	}
+}
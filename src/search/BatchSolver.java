@@ -0,0 +1,250 @@
+package search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import heuristic.Heuristic;
+
+/**
+ * Solves many puzzles concurrently on one executor. Every puzzle is solved by
+ * its own {@link GraphSearch}, but all of them share the heuristic, so tables
+ * such as a {@link heuristic.PatternDatabase} are loaded once per batch rather
+ * than once per puzzle; the heuristic must therefore be safe to call from
+ * several threads. Only a bounded number of puzzles are in flight at a time, so
+ * puzzles can be read lazily from an iterator of any length.
+ *
+ * Results are passed to a consumer on the calling thread, either in the order
+ * the puzzles were given or in the order they finish.
+ */
+public class BatchSolver implements AutoCloseable {
+
+	/**
+	 * The order in which results are delivered
+	 */
+	public enum Order {
+		/** The order the puzzles were given in; a slow puzzle holds back later results. */
+		INPUT,
+		/** The order the puzzles finish in. */
+		COMPLETION
+	}
+
+	private final Strategy strategy;
+	private final Heuristic heuristic;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private int maxInFlight;
+
+	/**
+	 * Constructs a solver with its own pool of the given number of threads,
+	 * shut down by {@link #close()}
+	 * @param strategy the search algorithm to use
+	 * @param heuristic the heuristic shared by every search
+	 * @param threads the number of puzzles solved at once
+	 */
+	public BatchSolver(Strategy strategy, Heuristic heuristic, int threads) {
+		this(strategy, heuristic, Executors.newFixedThreadPool(threads), true);
+		maxInFlight = 4 * threads;
+	}
+
+	/**
+	 * Constructs a solver that runs on an executor owned by the caller
+	 * @param strategy the search algorithm to use
+	 * @param heuristic the heuristic shared by every search
+	 * @param executor the executor to solve puzzles on; it is not shut down by {@link #close()}
+	 */
+	public BatchSolver(Strategy strategy, Heuristic heuristic, ExecutorService executor) {
+		this(strategy, heuristic, executor, false);
+	}
+
+	private BatchSolver(Strategy strategy, Heuristic heuristic, ExecutorService executor, boolean ownsExecutor) {
+		this.strategy = strategy;
+		this.heuristic = heuristic;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		maxInFlight = 4 * Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Sets the largest number of puzzles submitted to the executor but not yet
+	 * delivered. The default is four per thread.
+	 * @param maxInFlight the limit, at least 1
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("At least one puzzle must be in flight");
+		}
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Solves every puzzle, passing each result to the consumer as soon as the
+	 * requested order allows. Returns once every result has been delivered.
+	 * @param puzzles the puzzles to solve
+	 * @param order the order in which to deliver results
+	 * @param results receives the results, on the calling thread
+	 * @throws InterruptedException if interrupted while waiting for a result
+	 */
+	public void solve(Iterator<int[][]> puzzles, Order order, Consumer<Result> results) throws InterruptedException {
+		try {
+			if (order == Order.INPUT) {
+				solveInOrder(puzzles, results);
+			}
+			else {
+				solveAsCompleted(puzzles, results);
+			}
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Solver failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Solves every puzzle and returns the results in input order
+	 * @param puzzles the puzzles to solve
+	 * @return one result per puzzle
+	 * @throws InterruptedException if interrupted while waiting for a result
+	 */
+	public List<Result> solveAll(Iterable<int[][]> puzzles) throws InterruptedException {
+		List<Result> results = new ArrayList<Result>();
+		solve(puzzles.iterator(), Order.INPUT, results::add);
+		return results;
+	}
+
+	/**
+	 * Shuts down the executor if this solver created it
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	private void solveInOrder(Iterator<int[][]> puzzles, Consumer<Result> results) throws InterruptedException, ExecutionException {
+		Queue<Future<Result>> pending = new ArrayDeque<Future<Result>>();
+		long index = 0;
+		while (puzzles.hasNext()) {
+			if (pending.size() >= maxInFlight) {
+				results.accept(pending.remove().get());
+			}
+			int[][] puzzle = puzzles.next();
+			long i = index++;
+			pending.add(executor.submit(() -> solveOne(i, puzzle)));
+		}
+		while (!pending.isEmpty()) {
+			results.accept(pending.remove().get());
+		}
+	}
+
+	private void solveAsCompleted(Iterator<int[][]> puzzles, Consumer<Result> results) throws InterruptedException, ExecutionException {
+		CompletionService<Result> completed = new ExecutorCompletionService<Result>(executor);
+		int inFlight = 0;
+		long index = 0;
+		while (puzzles.hasNext()) {
+			if (inFlight >= maxInFlight) {
+				results.accept(completed.take().get());
+				inFlight--;
+			}
+			int[][] puzzle = puzzles.next();
+			long i = index++;
+			completed.submit(() -> solveOne(i, puzzle));
+			inFlight++;
+		}
+		for (; inFlight > 0; inFlight--) {
+			results.accept(completed.take().get());
+		}
+	}
+
+	/**
+	 * Solves one puzzle, reporting a board the search rejects in its result
+	 * rather than failing the batch
+	 */
+	private Result solveOne(long index, int[][] puzzle) {
+		GraphSearch search = new GraphSearch(strategy, heuristic);
+		search.setVerbose(false);
+		long start = System.nanoTime();
+		try {
+			String solution = search.solvePuzzle(puzzle);
+			return new Result(index, solution, System.nanoTime() - start, search.getNodesExpanded(), null);
+		}
+		catch (RuntimeException e) {
+			return new Result(index, null, System.nanoTime() - start, search.getNodesExpanded(), e);
+		}
+	}
+
+	/**
+	 * The outcome of solving one puzzle of a batch
+	 */
+	public static final class Result {
+		private final long index;
+		private final String solution;
+		private final long elapsedNanos;
+		private final long nodesExpanded;
+		private final RuntimeException error;
+
+		Result(long index, String solution, long elapsedNanos, long nodesExpanded, RuntimeException error) {
+			this.index = index;
+			this.solution = solution;
+			this.elapsedNanos = elapsedNanos;
+			this.nodesExpanded = nodesExpanded;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the position of the puzzle in the batch, counting from 0
+		 * @return the index of the puzzle
+		 */
+		public long getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the moves of the blank that solve the puzzle
+		 * @return the solution, or null if the puzzle is unsolvable or was rejected
+		 */
+		public String getSolution() {
+			return solution;
+		}
+
+		/**
+		 * Returns the wall-clock time spent solving the puzzle
+		 * @return the elapsed time in nanoseconds
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * Returns the number of nodes the search expanded
+		 * @return the number of expansions
+		 */
+		public long getNodesExpanded() {
+			return nodesExpanded;
+		}
+
+		/**
+		 * Returns the exception thrown for a puzzle that could not be searched,
+		 * such as a malformed board
+		 * @return the exception, or null if the search ran
+		 */
+		public RuntimeException getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return index + " " + (error != null ? "error " + error.getMessage() : solution == null ? "unsolvable" : solution.length() + " " + solution)
+					+ " " + nodesExpanded + " " + elapsedNanos / 1000 + "us";
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import heuristic.Heuristic;
+import util.PriorityQueue;
+
+/**
+ * Implements searches that run forward from the initial state and backward from
+ * the goal at the same time, stopping once the two searches meet. The path
+ * found by the backward search is reversed and spliced onto the forward path.
+ * Moves are reversible, so the backward search generates the same successors
+ * as the forward one.
+ */
+public class BidirectionalSearch {
+	private final Node start;
+	private final Node goal;
+	private final Map<Node, Node> forward = new HashMap<Node, Node>();
+	private final Map<Node, Node> backward = new HashMap<Node, Node>();
+	private Node meetForward;
+	private Node meetBackward;
+	private long expanded;
+
+	/**
+	 * Constructs a search between an initial state and the goal of its board shape
+	 * @param initialState the initial starting state
+	 */
+	public BidirectionalSearch(Node initialState) {
+		start = initialState;
+		goal = new Node(initialState.getLayout().getGoalBoard());
+	}
+
+	/**
+	 * Runs breadth-first searches from both ends, each time expanding a whole
+	 * layer of the side with the smaller frontier. A meeting found while
+	 * expanding a layer is only accepted once the layer is complete, which
+	 * guarantees the shortest path.
+	 *
+	 * @return
+	 * 		A string representing the directions for solving the puzzle or null if the puzzle is unsolvable
+	 */
+	public String breadthFirst() {
+		if (start.isGoal()) {
+			return "";
+		}
+		List<Node> forwardLayer = new ArrayList<Node>();
+		List<Node> backwardLayer = new ArrayList<Node>();
+		forwardLayer.add(start);
+		backwardLayer.add(goal);
+		forward.put(start, start);
+		backward.put(goal, goal);
+
+		while (!forwardLayer.isEmpty() && !backwardLayer.isEmpty()) {
+			if (forwardLayer.size() <= backwardLayer.size()) {
+				forwardLayer = expandLayer(forwardLayer, forward, backward, true);
+			}
+			else {
+				backwardLayer = expandLayer(backwardLayer, backward, forward, false);
+			}
+			if (meetForward != null) {
+				return splice();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Runs the MM meet-in-the-middle heuristic search. Each side orders its
+	 * frontier by max(f, 2g) and the side with the lower minimum is expanded.
+	 * The smaller of the two minima never exceeds the optimal cost, so the best
+	 * meeting found is optimal once its cost is at most that minimum.
+	 *
+	 * @param heuristic
+	 * 		An admissible heuristic for the forward search, returning f-costs
+	 * @return
+	 * 		A string representing the directions for solving the puzzle or null if the puzzle is unsolvable
+	 */
+	public String meetInTheMiddle(Heuristic heuristic) {
+		Heuristic toStart = new ManhattanTo(start);
+		PriorityQueue forwardOpen = new PriorityQueue(priority(heuristic));
+		PriorityQueue backwardOpen = new PriorityQueue(priority(toStart));
+		forwardOpen.push(start);
+		backwardOpen.push(goal);
+		forward.put(start, start);
+		backward.put(goal, goal);
+		int best = start.isGoal() ? 0 : Integer.MAX_VALUE;
+		if (best == 0) {
+			meetForward = start;
+			meetBackward = goal;
+		}
+
+		while (!forwardOpen.isEmpty() && !backwardOpen.isEmpty()) {
+			int lowest = Math.min(forwardOpen.minPriority(), backwardOpen.minPriority());
+			if (best <= lowest) {
+				break;
+			}
+			boolean isForward = forwardOpen.minPriority() <= backwardOpen.minPriority();
+			PriorityQueue open = isForward ? forwardOpen : backwardOpen;
+			Map<Node, Node> seen = isForward ? forward : backward;
+			Map<Node, Node> other = isForward ? backward : forward;
+
+			Node u = open.pop();
+			expanded++;
+			if ((expanded & (GraphSearch.CANCEL_CHECK_INTERVAL - 1)) == 0) {
+				GraphSearch.checkCancelled();
+			}
+			for (int direction = 0; direction < 4; direction++) {
+				Node successor = u.move(direction);
+				if (successor == null) {
+					continue;
+				}
+				Node previous = seen.get(successor);
+				if (previous != null && previous.getDepth() <= successor.getDepth()) {
+					continue;
+				}
+				seen.put(successor, successor);
+				open.push(successor);
+				Node meeting = other.get(successor);
+				if (meeting != null && successor.getDepth() + meeting.getDepth() < best) {
+					best = successor.getDepth() + meeting.getDepth();
+					meetForward = isForward ? successor : meeting;
+					meetBackward = isForward ? meeting : successor;
+				}
+			}
+		}
+		return meetForward == null ? null : splice();
+	}
+
+	/**
+	 * Returns the number of states reached by both searches
+	 * @return the number of distinct states generated from either end
+	 */
+	public int getStatesSeen() {
+		return forward.size() + backward.size();
+	}
+
+	/**
+	 * Returns the number of nodes both searches expanded
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Expands every node of a layer, recording the best meeting with the other side.
+	 * @return the next layer
+	 */
+	private List<Node> expandLayer(List<Node> layer, Map<Node, Node> seen, Map<Node, Node> other, boolean isForward) {
+		List<Node> next = new ArrayList<Node>();
+		int best = Integer.MAX_VALUE;
+		for (Node u : layer) {
+			expanded++;
+			if ((expanded & (GraphSearch.CANCEL_CHECK_INTERVAL - 1)) == 0) {
+				GraphSearch.checkCancelled();
+			}
+			int back = Node.inverseOf(u.getActionIndex());
+			for (int direction = 0; direction < 4; direction++) {
+				if (direction == back) {
+					continue;
+				}
+				Node successor = u.move(direction);
+				if (successor == null || seen.containsKey(successor)) {
+					continue;
+				}
+				seen.put(successor, successor);
+				next.add(successor);
+				Node meeting = other.get(successor);
+				if (meeting != null && successor.getDepth() + meeting.getDepth() < best) {
+					best = successor.getDepth() + meeting.getDepth();
+					meetForward = isForward ? successor : meeting;
+					meetBackward = isForward ? meeting : successor;
+				}
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Joins the forward path to the meeting state with the backward path,
+	 * reversed, from the meeting state to the goal.
+	 */
+	private String splice() {
+		StringBuilder path = new StringBuilder(GraphSearch.constructPath(start, meetForward));
+		for (Node c = meetBackward; c.getParent() != null; c = c.getParent()) {
+			path.append(Node.actionName(Node.inverseOf(c.getActionIndex())));
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Wraps a heuristic so that it returns the MM priority max(f, 2g)
+	 */
+	private static Heuristic priority(Heuristic heuristic) {
+		return node -> Math.max(heuristic.evaluate(node), 2 * node.getDepth());
+	}
+
+	/**
+	 * Manhattan distance to an arbitrary board, used to guide the backward
+	 * search towards the initial state. Like {@link heuristic.Manhattan} it
+	 * updates a successor's estimate from its parent's.
+	 */
+	private static class ManhattanTo implements Heuristic {
+		private final BoardLayout layout;
+		private final int[] distances;
+
+		ManhattanTo(Node target) {
+			layout = target.getLayout();
+			int cells = layout.getCells();
+			distances = new int[cells * cells];
+			for (int home = 0; home < cells; home++) {
+				int tile = target.tileAt(home);
+				for (int i = 0; tile != 0 && i < cells; i++) {
+					distances[tile * cells + i] = Math.abs(layout.rowOf(i) - layout.rowOf(home)) + Math.abs(layout.colOf(i) - layout.colOf(home));
+				}
+			}
+		}
+
+		@Override
+		public int evaluate(Node node) {
+			int estimate = node.getEstimate();
+			if (estimate == Node.NO_ESTIMATE) {
+				Node parent = node.getParent();
+				int cells = layout.getCells();
+				if (parent != null && parent.getEstimate() != Node.NO_ESTIMATE) {
+					int to = parent.getBlank();
+					int tile = node.tileAt(to);
+					estimate = parent.getEstimate() + distances[tile * cells + to] - distances[tile * cells + node.getBlank()];
+				}
+				else {
+					estimate = 0;
+					for (int i = 0; i < cells; i++) {
+						estimate += distances[node.tileAt(i) * cells + i];
+					}
+				}
+				node.setEstimate(estimate);
+			}
+			return estimate + node.getDepth();
+		}
+	}
+}
@@ -0,0 +1,449 @@
+package search;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Describes the shape of a sliding puzzle board and provides the board
+ * encodings used by {@link Node}. The encoding is chosen by the number of cells:
+ * <ul>
+ * <li>{@link Encoding#PACKED}, up to 16 cells (e.g. 4x4): a single long holding
+ * 4 bits per cell in row-major order (cell 0 in the lowest bits), with the blank
+ * stored as 0.</li>
+ * <li>{@link Encoding#WIDE}, up to 25 cells (e.g. 5x5): the same layout with 5
+ * bits per cell spread over two longs, cell 12 straddling them.</li>
+ * <li>{@link Encoding#BYTES}, up to 256 cells: one byte per cell.</li>
+ * </ul>
+ *
+ * Layouts are immutable and shared between every node of the same shape.
+ */
+public final class BoardLayout {
+	public static final int MAX_PACKED_CELLS = 16;
+	public static final int MAX_WIDE_CELLS = 25;
+	public static final int MAX_CELLS = 256;
+	public static final int BITS_PER_CELL = 4;
+	public static final int BITS_PER_WIDE_CELL = 5;
+
+	/**
+	 * The ways a board can be stored in a {@link Node}
+	 */
+	public enum Encoding {
+		/** A single long, 4 bits per cell */
+		PACKED,
+		/** Two longs, 5 bits per cell */
+		WIDE,
+		/** A byte array, one byte per cell */
+		BYTES
+	}
+
+	private static final long CELL_MASK = 0xFL;
+	private static final long WIDE_CELL_MASK = 0x1FL;
+	private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+	private static final Map<Integer, BoardLayout> layouts = new ConcurrentHashMap<Integer, BoardLayout>();
+
+	private final int width;
+	private final int height;
+	private final int cells;
+	private final Encoding encoding;
+	private final boolean packed;
+	private final int tileShift;
+	private final long goal;
+	private final long goalHigh;
+	private final byte[] goalTiles;
+	private final int[][] neighbours;
+	private final int[] rowOf;
+	private final int[] colOf;
+	private final int[] distances;
+	private final long[] zobrist;
+
+	/**
+	 * Returns the layout for a board with the given dimensions.
+	 * @param width the number of columns
+	 * @param height the number of rows
+	 * @return the shared layout for boards of this shape
+	 * @throws IllegalArgumentException if the board has fewer than 2 or more than
+	 * MAX_CELLS cells
+	 */
+	public static BoardLayout of(int width, int height) {
+		if (width < 1 || height < 1 || width * height < 2 || width * height > MAX_CELLS) {
+			throw new IllegalArgumentException("Unsupported board size " + height + "x" + width);
+		}
+		Integer key = height * (MAX_CELLS + 1) + width;
+		BoardLayout layout = layouts.get(key);
+		if (layout == null) {
+			layout = new BoardLayout(width, height);
+			BoardLayout raced = layouts.putIfAbsent(key, layout);
+			if (raced != null) {
+				layout = raced;
+			}
+		}
+		return layout;
+	}
+
+	private BoardLayout(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.cells = width * height;
+		if (cells <= MAX_PACKED_CELLS) {
+			encoding = Encoding.PACKED;
+		}
+		else if (cells <= MAX_WIDE_CELLS) {
+			encoding = Encoding.WIDE;
+		}
+		else {
+			encoding = Encoding.BYTES;
+		}
+		packed = encoding == Encoding.PACKED;
+		tileShift = packed ? BITS_PER_CELL : 32 - Integer.numberOfLeadingZeros(cells - 1);
+
+		rowOf = new int[cells];
+		colOf = new int[cells];
+		goalTiles = new byte[cells];
+		long g = 0;
+		long gHigh = 0;
+		for (int i = 0; i < cells; i++) {
+			rowOf[i] = i / width;
+			colOf[i] = i % width;
+			if (i < cells - 1) {
+				goalTiles[i] = (byte) (i + 1);
+				if (packed) {
+					g |= (long) (i + 1) << (BITS_PER_CELL * i);
+				}
+				else if (encoding == Encoding.WIDE) {
+					g |= wideLow(i + 1, i);
+					gHigh |= wideHigh(i + 1, i);
+				}
+			}
+		}
+		goal = g;
+		goalHigh = gHigh;
+
+		// distances[tile * cells + cell] is the manhattan distance of the tile from its goal cell
+		distances = new int[cells * cells];
+		for (int tile = 1; tile < cells; tile++) {
+			int home = goalCell(tile);
+			for (int i = 0; i < cells; i++) {
+				distances[tile * cells + i] = Math.abs(rowOf[i] - rowOf[home]) + Math.abs(colOf[i] - colOf[home]);
+			}
+		}
+
+		// zobrist[cell << tileShift | tile] is a random key; a board hashes to the xor of the keys of its tiles
+		zobrist = new long[cells << tileShift];
+		SplittableRandom random = new SplittableRandom(ZOBRIST_SEED ^ cells);
+		for (int i = 0; i < cells; i++) {
+			for (int tile = 1; tile < cells; tile++) {
+				zobrist[i << tileShift | tile] = random.nextLong();
+			}
+		}
+
+		// neighbours[direction][cell] is the cell the blank moves to, or -1 if illegal
+		neighbours = new int[4][cells];
+		for (int i = 0; i < cells; i++) {
+			neighbours[Node.UP_INDEX][i] = rowOf[i] > 0 ? i - width : -1;
+			neighbours[Node.DOWN_INDEX][i] = rowOf[i] < height - 1 ? i + width : -1;
+			neighbours[Node.LEFT_INDEX][i] = colOf[i] > 0 ? i - 1 : -1;
+			neighbours[Node.RIGHT_INDEX][i] = colOf[i] < width - 1 ? i + 1 : -1;
+		}
+	}
+
+	/**
+	 * Returns the number of columns
+	 * @return the board width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the number of rows
+	 * @return the board height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the number of cells, including the blank
+	 * @return width times height
+	 */
+	public int getCells() {
+		return cells;
+	}
+
+	/**
+	 * Returns how boards of this shape are stored
+	 * @return the encoding used by nodes of this shape
+	 */
+	public Encoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Returns true if boards of this shape fit in a single long, so that
+	 * {@link Node#getState()} identifies the board
+	 * @return true if the encoding is PACKED
+	 */
+	public boolean isPacked() {
+		return packed;
+	}
+
+	/**
+	 * Returns the packed goal state: tiles in increasing order with the blank
+	 * last. For WIDE layouts this is the low word of the goal, and for BYTES
+	 * layouts it is 0.
+	 * @return the packed goal state
+	 */
+	public long getGoal() {
+		return goal;
+	}
+
+	/**
+	 * Returns the goal state as a newly allocated board
+	 * @return the goal board, with 0 for the blank
+	 */
+	public int[][] getGoalBoard() {
+		int[][] board = new int[height][width];
+		for (int i = 0; i < cells; i++) {
+			board[rowOf[i]][colOf[i]] = goalTiles[i] & 0xFF;
+		}
+		return board;
+	}
+
+	/**
+	 * Returns the high word of the goal of a WIDE layout, 0 otherwise
+	 */
+	long goalHigh() {
+		return goalHigh;
+	}
+
+	/**
+	 * Returns the goal of a BYTES layout, null otherwise. Must not be modified.
+	 */
+	byte[] goalTiles() {
+		return encoding == Encoding.BYTES ? goalTiles : null;
+	}
+
+	/**
+	 * Returns the row of a cell
+	 * @param cell a cell index in row-major order
+	 * @return the row of the cell
+	 */
+	public int rowOf(int cell) {
+		return rowOf[cell];
+	}
+
+	/**
+	 * Returns the column of a cell
+	 * @param cell a cell index in row-major order
+	 * @return the column of the cell
+	 */
+	public int colOf(int cell) {
+		return colOf[cell];
+	}
+
+	/**
+	 * Returns the cell a tile occupies in the goal state
+	 * @param tile a tile number, 0 for the blank
+	 * @return the goal cell of the tile
+	 */
+	public int goalCell(int tile) {
+		return tile == 0 ? cells - 1 : tile - 1;
+	}
+
+	/**
+	 * Returns the number of moves a tile in a cell is from its goal cell,
+	 * ignoring other tiles
+	 * @param tile a tile number, or 0 for the blank (whose distance is 0)
+	 * @param cell a cell index
+	 * @return the manhattan distance of the tile from its goal cell
+	 */
+	public int distance(int tile, int cell) {
+		return distances[tile * cells + cell];
+	}
+
+	/**
+	 * Returns the Zobrist key of a tile in a cell. The hash of a board is the xor
+	 * of the keys of its tiles, so a move updates it with two xors.
+	 * @param tile a tile number, or 0 for the blank (whose key is 0)
+	 * @param cell a cell index
+	 * @return the random key of the tile in the cell
+	 */
+	public long zobrist(int tile, int cell) {
+		return zobrist[cell << tileShift | tile];
+	}
+
+	/**
+	 * Computes the Zobrist hash of a packed board from scratch
+	 * @param packed a packed board of this layout's shape
+	 * @return the xor of the keys of the board's tiles
+	 */
+	public long hash(long packed) {
+		long hash = 0;
+		for (int i = 0; i < cells; i++, packed >>>= BITS_PER_CELL) {
+			hash ^= zobrist[i << BITS_PER_CELL | (int) (packed & CELL_MASK)];
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the cell the blank moves to when it moves in the given direction.
+	 * @param direction one of the direction indices defined in {@link Node}
+	 * @param blank the cell currently holding the blank
+	 * @return the destination cell, or -1 if the move is illegal
+	 */
+	public int neighbour(int direction, int blank) {
+		return neighbours[direction][blank];
+	}
+
+	/**
+	 * Checks that a board has this layout's shape and holds each tile once, and
+	 * copies it into an array of cells in row-major order.
+	 * @param board a board of this layout's shape
+	 * @return the tiles of the board, one unsigned byte per cell
+	 */
+	byte[] toTiles(int[][] board) {
+		if (board.length != height) {
+			throw new IllegalArgumentException("Board has " + board.length + " rows, expected " + height);
+		}
+		byte[] tiles = new byte[cells];
+		boolean[] seen = new boolean[cells];
+		for (int i = 0; i < height; i++) {
+			if (board[i].length != width) {
+				throw new IllegalArgumentException("Board row " + i + " has " + board[i].length + " columns, expected " + width);
+			}
+			for (int j = 0; j < width; j++) {
+				int tile = board[i][j];
+				if (tile < 0 || tile >= cells) {
+					throw new IllegalArgumentException("Tile " + tile + " out of range for a " + cells + " cell board");
+				}
+				if (seen[tile]) {
+					throw new IllegalArgumentException("Tile " + tile + " appears more than once");
+				}
+				seen[tile] = true;
+				tiles[i * width + j] = (byte) tile;
+			}
+		}
+		return tiles;
+	}
+
+	/**
+	 * Packs a board into a long.
+	 * @param board a board of this layout's shape, which must be PACKED
+	 * @return the packed board
+	 */
+	public long pack(int[][] board) {
+		if (board.length != height) {
+			throw new IllegalArgumentException("Board has " + board.length + " rows, expected " + height);
+		}
+		long packed = 0;
+		int seen = 0;
+		for (int i = 0; i < height; i++) {
+			if (board[i].length != width) {
+				throw new IllegalArgumentException("Board row " + i + " has " + board[i].length + " columns, expected " + width);
+			}
+			for (int j = 0; j < width; j++) {
+				int tile = board[i][j];
+				if (tile < 0 || tile >= cells) {
+					throw new IllegalArgumentException("Tile " + tile + " out of range for a " + cells + " cell board");
+				}
+				if ((seen & (1 << tile)) != 0) {
+					throw new IllegalArgumentException("Tile " + tile + " appears more than once");
+				}
+				seen |= 1 << tile;
+				packed |= (long) tile << (BITS_PER_CELL * (i * width + j));
+			}
+		}
+		return packed;
+	}
+
+	/**
+	 * Unpacks a packed board into a newly allocated array.
+	 * @param packed a packed board of this layout's shape
+	 * @return the board as rows of tiles
+	 */
+	public int[][] unpack(long packed) {
+		int[][] board = new int[height][width];
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				board[i][j] = tile(packed, i * width + j);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Returns the cell holding the blank in a packed board
+	 * @param packed a packed board of this layout's shape
+	 * @return the cell of the blank
+	 */
+	public int findBlank(long packed) {
+		for (int i = 0; i < cells; i++) {
+			if (tile(packed, i) == 0) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Board has no blank");
+	}
+
+	/**
+	 * Returns the tile in a cell of a packed board
+	 * @param packed a packed board
+	 * @param cell the cell index
+	 * @return the tile in the cell, 0 for the blank
+	 */
+	public static int tile(long packed, int cell) {
+		return (int) ((packed >>> (BITS_PER_CELL * cell)) & CELL_MASK);
+	}
+
+	/**
+	 * Slides the tile in cell <code>to</code> into the blank at cell <code>from</code>.
+	 * @param packed a packed board with the blank at <code>from</code>
+	 * @param from the cell holding the blank
+	 * @param to the cell holding the tile to slide
+	 * @return the packed board after the move
+	 */
+	public static long slide(long packed, int from, int to) {
+		long tile = (packed >>> (BITS_PER_CELL * to)) & CELL_MASK;
+		return packed - (tile << (BITS_PER_CELL * to)) + (tile << (BITS_PER_CELL * from));
+	}
+
+	/**
+	 * Returns the tile in a cell of a WIDE board
+	 * @param low the low word of the board
+	 * @param high the high word of the board
+	 * @param cell the cell index
+	 * @return the tile in the cell, 0 for the blank
+	 */
+	static int tile(long low, long high, int cell) {
+		int bit = BITS_PER_WIDE_CELL * cell;
+		if (bit >= Long.SIZE) {
+			return (int) ((high >>> (bit - Long.SIZE)) & WIDE_CELL_MASK);
+		}
+		long word = low >>> bit;
+		if (bit > Long.SIZE - BITS_PER_WIDE_CELL) {
+			word |= high << (Long.SIZE - bit);
+		}
+		return (int) (word & WIDE_CELL_MASK);
+	}
+
+	/**
+	 * Returns the bits a tile in a cell sets in the low word of a WIDE board.
+	 * Xoring the low and high bits of a tile in and out moves it.
+	 */
+	static long wideLow(int tile, int cell) {
+		int bit = BITS_PER_WIDE_CELL * cell;
+		return bit < Long.SIZE ? (long) tile << bit : 0;
+	}
+
+	/**
+	 * Returns the bits a tile in a cell sets in the high word of a WIDE board
+	 */
+	static long wideHigh(int tile, int cell) {
+		int bit = BITS_PER_WIDE_CELL * cell;
+		if (bit >= Long.SIZE) {
+			return (long) tile << (bit - Long.SIZE);
+		}
+		return bit > Long.SIZE - BITS_PER_WIDE_CELL ? (long) tile >>> (Long.SIZE - bit) : 0;
+	}
+}
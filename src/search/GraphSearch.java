@@ -1,8 +1,11 @@
 package search;
 
-import java.util.HashSet;
 import java.lang.StringBuilder;
-import java.util.Set;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import util.*;
 import heuristic.*;
@@ -13,6 +16,195 @@ import search.Node;
 *
 */
 public class GraphSearch {
+	/** Number of expansions between two checks for cancellation. */
+	static final int CANCEL_CHECK_INTERVAL = 1024;
+	/** Amount anytime A* lowers its weight by after each solution. */
+	private static final double ANYTIME_WEIGHT_STEP = 0.5;
+
+	private final Strategy strategy;
+	private final Heuristic heuristic;
+	private boolean reopenClosed;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean verbose;
+	private boolean cpuTimed = true;
+	private int transpositionEntries = 1 << 16;
+	private double weight = 2;
+	private long timeBudgetNanos = 50_000_000L;
+	private MoveTable moveTable;
+	private SolutionCache cache;
+	private SearchListener listener;
+	private long nodesExpanded;
+	private long nodesGenerated;
+	private int peakFrontier;
+	private int closedSize;
+	private long duplicatesPruned;
+	private double bound;
+
+	/**
+	* Constructs a solver that uses A* with the misplaced tiles heuristic.
+	*/
+	public GraphSearch() {
+		this(Strategy.ASTAR, new Misplaced());
+	}
+
+	/**
+	* Constructs a solver that uses the given search strategy.
+	*
+	* @param strategy
+	* 		The search algorithm to use
+	* @param heuristic
+	* 		The heuristic guiding informed strategies; ignored by BFS and DFS
+	*/
+	public GraphSearch(Strategy strategy, Heuristic heuristic) {
+		this.strategy = strategy;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	* Sets whether A* reopens explored states when it finds a cheaper path to
+	* them. Reopening is only needed for inconsistent heuristics, for which the
+	* first expansion of a state may not be along its cheapest path; it keeps the
+	* depth of every explored node, so it costs more memory than the default.
+	*
+	* @param reopen
+	* 		True to reopen explored states, false to expand each state at most once
+	*/
+	public void setReopenClosed(boolean reopen) {
+		reopenClosed = reopen;
+	}
+
+	/**
+	* Sets the number of worker threads used by the parallel strategies. The
+	* default is the number of available processors.
+	*
+	* @param threads
+	* 		The number of worker threads, at least 1
+	*/
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	* Sets the size of the transposition table the IDDFS strategy uses to skip
+	* subtrees that already failed in an earlier iteration. The default is
+	* 65,536 entries, about 576 KB.
+	*
+	* @param entries
+	* 		The number of entries, or 0 to search without a table
+	*/
+	public void setTranspositionTableSize(int entries) {
+		if (entries < 0) {
+			throw new IllegalArgumentException("Table size must not be negative");
+		}
+		transpositionEntries = entries;
+	}
+
+	/**
+	* Sets the weight on the heuristic's estimate used by weighted A*, and the
+	* weight anytime A* starts from. Weighted A* finds solutions at most this
+	* many times longer than the shortest; higher weights find them faster. The
+	* default is 2.
+	*
+	* @param weight
+	* 		The weight, at least 1
+	*/
+	public void setWeight(double weight) {
+		if (!(weight >= 1)) {
+			throw new IllegalArgumentException("Weight must be at least 1");
+		}
+		this.weight = weight;
+	}
+
+	/**
+	* Sets how long anytime A* keeps improving its solution. Once the budget
+	* is spent it stops and returns the best solution found, a few
+	* milliseconds later once the solution's bound is worked out. A first
+	* solution is always found, however long that takes. The default is 50 ms.
+	*
+	* @param millis
+	* 		The time budget of each solve in milliseconds
+	*/
+	public void setTimeBudget(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Time budget must not be negative");
+		}
+		timeBudgetNanos = millis * 1_000_000L;
+	}
+
+	/**
+	* Sets the move table used by the TABLE strategy, e.g. one mapped from a file
+	* with {@link MoveTable#open}. Without one, the table for the puzzle's board
+	* is built in memory the first time it is needed.
+	*
+	* @param table
+	* 		The precomputed table for the boards to be solved
+	*/
+	public void setMoveTable(MoveTable table) {
+		moveTable = table;
+	}
+
+	/**
+	* Sets a cache consulted before searching. Solutions the search proves
+	* shortest are added to it along with every state on their path; those of
+	* DFS, weighted A* and anytime A* stopped before proving its solution
+	* shortest are not. A cache can be shared by several solvers.
+	*
+	* @param cache
+	* 		The cache to use, or null to always search
+	*/
+	public void setCache(SolutionCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	* Sets a listener told of every expansion, generated node, pruned duplicate
+	* and goal found by the BFS, DFS, A*, bucket A*, weighted A* and anytime A*
+	* strategies, and of each improved solution found by anytime A*.
+	*
+	* @param listener
+	* 		The listener, or null for none
+	*/
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	* Sets whether searches measure the CPU time they take. The first
+	* measurement loads the JVM's management beans, which costs tens of
+	* milliseconds, so short-lived processes that do not report CPU time turn it
+	* off.
+	*
+	* @param cpuTimed
+	* 		True to measure CPU time, false to report it as -1
+	*/
+	public void setCpuTimed(boolean cpuTimed) {
+		this.cpuTimed = cpuTimed;
+	}
+
+	/**
+	* Sets whether the statistics of every search are printed to standard
+	* output. Printing is off by default; callers that want the numbers should
+	* use {@link #solve(int[][])} instead.
+	*
+	* @param verbose
+	* 		True to print a summary of each search
+	*/
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	* Returns the number of nodes the last call to solvePuzzle expanded
+	*
+	* @return
+	* 		The number of expansions, 0 if the puzzle was rejected as unsolvable
+	*/
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
 
 	/**
 	* This method takes in a puzzle and returns the solution in the form of a string of directions (U, D, L, R)
@@ -24,31 +216,177 @@ public class GraphSearch {
 	* 		A string representing the directions for solving the puzzle or null if the puzzle is unsolvable
 	*/
 	public String solvePuzzle(int[][] puzzle) {
+		return solve(puzzle).getPath();
+	}
+
+	/**
+	* Solves a puzzle and reports how the search went.
+	*
+	* @param puzzle
+	* 		A starting puzzle configuration
+	* @return
+	* 		The solution, null if the puzzle is unsolvable, with the search statistics
+	* @throws CancellationException
+	* 		If the calling thread is interrupted during the search
+	*/
+	public SearchResult solve(int[][] puzzle) {
+		SearchEvents.Search event = SearchEvents.recorderStarted() ? new SearchEvents.Search() : null;
+		if (event != null) {
+			event.begin();
+		}
 		Node initialState = new Node(puzzle);
+		nodesExpanded = 0;
+		nodesGenerated = 0;
+		peakFrontier = 0;
+		closedSize = 0;
+		duplicatesPruned = 0;
+		bound = Double.NaN;
+		long start = System.nanoTime();
+		long cpuStart = cpuTimed ? cpuTime() : -1;
+		String solution = null;
+		if (Solvability.isSolvable(initialState)) { //otherwise no strategy can reach the goal, so don't start one
+			solution = cache == null ? null : cache.get(initialState);
+			if (solution != null) {
+				bound = 1; // only shortest solutions are cached
+			}
+			else {
+				// weighted A* and anytime A* set their own bound; DFS proves none
+				bound = strategy.isOptimal() ? 1 : Double.NaN;
+				Heuristic h = SearchEvents.timed(heuristic);
+				solution = runStrategy(initialState, h);
+				if (h instanceof SearchEvents.TimedHeuristic) {
+					((SearchEvents.TimedHeuristic) h).commit();
+				}
+				// only shortest solutions are shared, since optimal strategies read them back
+				if (solution != null && cache != null && bound == 1) {
+					cache.put(initialState, solution);
+				}
+			}
+		}
+		if (solution == null) {
+			bound = Double.NaN;
+		}
+		long cpu = cpuStart < 0 ? -1 : cpuTime() - cpuStart;
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.strategy = strategy.name();
+				event.heuristic = heuristic == null ? null : heuristic.getClass().getSimpleName();
+				event.cells = initialState.getLayout().getCells();
+				event.solutionLength = solution == null ? -1 : solution.length();
+				event.nodesExpanded = nodesExpanded;
+				event.nodesGenerated = nodesGenerated;
+				event.peakFrontier = peakFrontier;
+				event.closedSize = closedSize;
+				event.commit();
+			}
+		}
+		SearchResult result = new SearchResult(solution, nodesExpanded, nodesGenerated, peakFrontier, closedSize,
+				duplicatesPruned, System.nanoTime() - start, cpu, bound);
+		if (verbose) {
+			System.out.println(result);
+		}
+		return result;
+	}
 
-/****** BFS *****/
-		// MyQueue q = new MyQueue();
-		// return graphSearch(initialState, q);
+	/**
+	* Throws CancellationException if the current thread has been interrupted,
+	* e.g. by {@link java.util.concurrent.Future#cancel}. Every strategy that
+	* can run for long calls this each CANCEL_CHECK_INTERVAL expansions, so a
+	* cancelled solve stops promptly; the interrupt status is left set.
+	*/
+	static void checkCancelled() {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("Search cancelled");
+		}
+	}
 
-/****** DFS *****/
-		 // MyStack s = new MyStack();
-		 // return graphSearch(initialState, s);
+	/**
+	* Returns the CPU time of the current thread, or -1 if it cannot be measured.
+	*/
+	private static long cpuTime() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+	}
 
-/****** A* Manhattan *****/
-		 // Manhattan manhattan = new Manhattan();
-		 // System.out.println("Manhattan val: " + manhattan.evaluate(initialState));
-		 // PriorityQueue pq = new PriorityQueue(manhattan);
-		 // return graphSearch(initialState, pq);
+	/**
+	* Solves a solvable puzzle with the configured strategy, guided by the given
+	* heuristic, which is the configured one, possibly timed for JFR.
+	*/
+	private String runStrategy(Node initialState, Heuristic heuristic) {
+		switch (strategy) {
+		case BFS:
+			return graphSearch(initialState, new MyQueue());
+		case DFS:
+			return graphSearch(initialState, new MyStack());
+		case BUCKET_ASTAR:
+			return search(initialState, new BucketQueue(heuristic));
+		case WEIGHTED_ASTAR:
+			bound = weight;
+			return search(initialState, new PriorityQueue(new Weighted(heuristic, weight)));
+		case ANYTIME_ASTAR:
+			AnytimeRepairingAStar anytime = new AnytimeRepairingAStar(heuristic, weight, ANYTIME_WEIGHT_STEP);
+			anytime.setListener(listener);
+			Node best = anytime.search(initialState, System.nanoTime() + timeBudgetNanos);
+			nodesExpanded = anytime.getNodesExpanded();
+			nodesGenerated = anytime.getNodesGenerated();
+			duplicatesPruned = anytime.getDuplicatesPruned();
+			peakFrontier = anytime.getPeakFrontier();
+			closedSize = anytime.getStatesSeen();
+			bound = anytime.getBound();
+			return best == null ? null : constructPath(initialState, best);
+		case IDDFS:
+			IterativeDeepeningSearch iddfs = new IterativeDeepeningSearch(
+					transpositionEntries > 0 ? new TranspositionTable(transpositionEntries) : null);
+			Node reached = iddfs.search(initialState);
+			nodesExpanded = iddfs.getNodesExpanded();
+			nodesGenerated = iddfs.getNodesGenerated();
+			duplicatesPruned = iddfs.getDuplicatesPruned();
+			return constructPath(initialState, reached);
+		case IDA_STAR:
+			IterativeDeepeningAStar idaStar = new IterativeDeepeningAStar(heuristic);
+			Node goal = idaStar.search(initialState);
+			nodesExpanded = idaStar.getNodesExpanded();
+			nodesGenerated = idaStar.getNodesGenerated();
+			return constructPath(initialState, goal);
+		case BIDIRECTIONAL_BFS:
+		case BIDIRECTIONAL_ASTAR:
+			BidirectionalSearch bidirectional = new BidirectionalSearch(initialState);
+			String path = strategy == Strategy.BIDIRECTIONAL_BFS ? bidirectional.breadthFirst() : bidirectional.meetInTheMiddle(heuristic);
+			nodesExpanded = bidirectional.getNodesExpanded();
+			closedSize = bidirectional.getStatesSeen();
+			return path;
+		case PARALLEL_ASTAR:
+			ParallelAStar hdaStar = new ParallelAStar(heuristic, threads);
+			Node solution = hdaStar.search(initialState);
+			nodesExpanded = hdaStar.getNodesExpanded();
+			return solution == null ? null : constructPath(initialState, solution);
+		case PARALLEL_BFS:
+			ParallelBreadthFirstSearch parallelBfs = new ParallelBreadthFirstSearch(threads);
+			Node found = parallelBfs.search(initialState);
+			nodesExpanded = parallelBfs.getNodesExpanded();
+			closedSize = parallelBfs.getStatesSeen();
+			return found == null ? null : constructPath(initialState, found);
+		case TABLE:
+			MoveTable table = moveTable != null ? moveTable : MoveTable.of(initialState.getLayout());
+			return table.solve(initialState);
+		case ASTAR:
+		default:
+			return search(initialState, new PriorityQueue(heuristic));
+		}
+	}
 
-/****** A* Misplaced *****/
-		Misplaced misplaced= new Misplaced();
-		System.out.println("Misplaced val: " + misplaced.evaluate(initialState));
-		PriorityQueue pq = new PriorityQueue(misplaced);
-		return graphSearch(initialState, pq);
 
+	/**
+	* Runs an informed search, reopening explored states if configured to.
+	*/
+	private String search(Node initialState, OrderedCollection frontier){
+		if (reopenClosed) {
+			return graphSearchReopening(initialState, frontier);
+		}
+		return graphSearch(initialState, frontier);
 	}
 
-
 	/**
 	* Implements the GraphSearch algorithm
 	*
@@ -59,25 +397,124 @@ public class GraphSearch {
 	* @return
 	* 		A string representing the directions for solving the puzzle or null if the puzzle is unsolvable
 	*/
-	private static String graphSearch(Node initialState, OrderedCollection frontier){
-		Set<Node> explored = new HashSet<Node>();
+	private String graphSearch(Node initialState, OrderedCollection frontier){
+		ClosedSet explored = ClosedSet.forLayout(initialState.getLayout());
 		frontier.push(initialState);
 
 		while(!frontier.isEmpty()){
 			Node u = frontier.pop();
 
 			if(u.isGoal()){
-				System.out.println("Number of nodes generated: " + explored.size());
+				closedSize = explored.size();
+				if(listener != null){
+					listener.onGoal(u);
+				}
 				return constructPath(initialState, u);
 			}
-			explored.add(u);
+			if(!explored.add(u)){
+				duplicatesPruned++;
+				if(listener != null){
+					listener.onDuplicate(u);
+				}
+				continue; //a duplicate queued before its state was first expanded
+			}
+			if(listener != null){
+				listener.onExpand(u);
+			}
+			if((++nodesExpanded & (CANCEL_CHECK_INTERVAL - 1)) == 0){
+				checkCancelled();
+				SearchEvents.sampleFrontier(frontier.size(), explored.size(), nodesExpanded, u.getDepth());
+			}
 			Node[] successors = u.getSuccessors();
 			for (int i = 0; i < 4; i++){
-				if (successors[i] != null && !explored.contains(successors[i])){
-					frontier.push(successors[i]);
+				if (successors[i] != null){
+					nodesGenerated++;
+					if(listener != null){
+						listener.onGenerate(successors[i]);
+					}
+					if (!explored.contains(successors[i])){
+						frontier.push(successors[i]);
+					}
+					else {
+						duplicatesPruned++;
+						if(listener != null){
+							listener.onDuplicate(successors[i]);
+						}
+					}
+				}
+			}
+			peakFrontier = Math.max(peakFrontier, frontier.size());
+		}
+		closedSize = explored.size();
+		return null;
+	}
+
+
+	/**
+	* Implements the GraphSearch algorithm, remembering the node each state was
+	* expanded from so that a state reached again along a shorter path is pushed
+	* back onto the frontier and expanded again.
+	*
+	* @param initialState
+	* 		The initial starting state
+	* @param frontier
+	* 		An ordered collection of nodes used to keep track of unexpanded nodes
+	* @return
+	* 		A string representing the directions for solving the puzzle or null if the puzzle is unsolvable
+	*/
+	private String graphSearchReopening(Node initialState, OrderedCollection frontier){
+		Map<Node, Node> explored = new HashMap<Node, Node>();
+		frontier.push(initialState);
+
+		while(!frontier.isEmpty()){
+			Node u = frontier.pop();
+
+			if(u.isGoal()){
+				closedSize = explored.size();
+				if(listener != null){
+					listener.onGoal(u);
+				}
+				return constructPath(initialState, u);
+			}
+			Node previous = explored.remove(u);
+			if(previous != null && previous.getDepth() <= u.getDepth()){
+				explored.put(previous, previous);
+				duplicatesPruned++;
+				if(listener != null){
+					listener.onDuplicate(u);
+				}
+				continue; //already expanded along a path at least as short
+			}
+			explored.put(u, u);
+			if(listener != null){
+				listener.onExpand(u);
+			}
+			if((++nodesExpanded & (CANCEL_CHECK_INTERVAL - 1)) == 0){
+				checkCancelled();
+				SearchEvents.sampleFrontier(frontier.size(), explored.size(), nodesExpanded, u.getDepth());
+			}
+			for (int direction = 0; direction < 4; direction++){
+				Node successor = u.move(direction);
+				if (successor != null){
+					nodesGenerated++;
+					if(listener != null){
+						listener.onGenerate(successor);
+					}
+					Node closed = explored.get(successor);
+					if (closed == null || successor.getDepth() < closed.getDepth()){
+						frontier.push(successor);
+					}
+					else {
+						duplicatesPruned++;
+						if(listener != null){
+							listener.onDuplicate(successor);
+						}
+					}
 				}
 			}
+			peakFrontier = Math.max(peakFrontier, frontier.size());
 		}
+		closedSize = explored.size();
 		return null;
 	}
 
@@ -92,7 +529,7 @@ public class GraphSearch {
 	* @return
 	*		A string representing the directions for solving the puzzle
 	*/
-	private static String constructPath(Node s, Node u){
+	static String constructPath(Node s, Node u){
 		Node c = u; //c is the current node as we traverse to node s
 		String path = "";
 		while (!c.equals(s)){
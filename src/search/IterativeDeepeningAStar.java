@@ -0,0 +1,109 @@
+package search;
+
+import heuristic.Heuristic;
+
+/**
+ * Implements iterative-deepening A* (IDA*). Each iteration is a depth-first
+ * search that cuts off nodes whose f-cost exceeds a bound; the next bound is the
+ * smallest f-cost that was cut off. Only the current path is kept in memory, so
+ * memory grows with the solution depth rather than with the number of states
+ * explored. Moves that undo the parent's move are never generated.
+ */
+public class IterativeDeepeningAStar {
+	private static final int FOUND = -1;
+
+	private final Heuristic heuristic;
+	private Node goal;
+	private long expanded;
+	private long generated;
+
+	/**
+	 * Constructs a search guided by the given heuristic
+	 * @param heuristic a heuristic returning f-costs; it must be admissible for solutions to be optimal
+	 */
+	public IterativeDeepeningAStar(Heuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Searches for the goal from the initial state. The puzzle must be solvable,
+	 * otherwise the search does not terminate.
+	 *
+	 * @param initialState
+	 * 		The initial starting state
+	 * @return
+	 * 		The goal node, whose parent chain leads back to the initial state
+	 */
+	public Node search(Node initialState) {
+		goal = null;
+		expanded = 0;
+		generated = 0;
+		int bound = heuristic.evaluate(initialState);
+		while (true) {
+			int next = boundedSearch(initialState, bound);
+			if (next == FOUND) {
+				return goal;
+			}
+			bound = next;
+		}
+	}
+
+	/**
+	 * Returns the number of nodes the last search expanded, counting nodes
+	 * expanded again by later iterations
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the number of successors the last search generated, counting
+	 * nodes generated again by later iterations
+	 * @return the number of generated nodes
+	 */
+	public long getNodesGenerated() {
+		return generated;
+	}
+
+	/**
+	 * Depth-first search below u, cutting off nodes with f-cost above the bound.
+	 *
+	 * @param u the node to expand
+	 * @param bound the largest f-cost to expand in this iteration
+	 * @return FOUND if the goal was reached, otherwise the smallest f-cost that exceeded the bound
+	 */
+	private int boundedSearch(Node u, int bound) {
+		int f = heuristic.evaluate(u);
+		if (f > bound) {
+			return f;
+		}
+		if (u.isGoal()) {
+			goal = u;
+			return FOUND;
+		}
+		expanded++;
+		if ((expanded & (GraphSearch.CANCEL_CHECK_INTERVAL - 1)) == 0) {
+			GraphSearch.checkCancelled();
+		}
+		int min = Integer.MAX_VALUE;
+		int back = Node.inverseOf(u.getActionIndex());
+		for (int direction = 0; direction < 4; direction++) {
+			if (direction == back) {
+				continue;
+			}
+			Node successor = u.move(direction);
+			if (successor != null) {
+				generated++;
+				int t = boundedSearch(successor, bound);
+				if (t == FOUND) {
+					return FOUND;
+				}
+				if (t < min) {
+					min = t;
+				}
+			}
+		}
+		return min;
+	}
+}
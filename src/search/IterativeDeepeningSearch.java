@@ -0,0 +1,160 @@
+package search;
+
+import util.TranspositionTable;
+
+/**
+ * Implements iterative-deepening depth-first search (IDDFS). Each iteration is
+ * a depth-first search cut off at a depth limit, and the limit grows until the
+ * goal is found, so the first solution found is a shortest one. Only the
+ * current path is kept in memory. A successor whose state is already on the
+ * current path closes a cycle and is skipped, as are moves that undo the
+ * parent's move.
+ *
+ * The blank's position fixes the parity of every solution's length, so limits
+ * of the other parity are never tried. An optional {@link TranspositionTable}
+ * remembers subtrees that failed in earlier iterations and is shared between
+ * them; it is only used for boards that pack into a long.
+ */
+public class IterativeDeepeningSearch {
+	private final TranspositionTable table;
+	private TranspositionTable active;
+	private Node goal;
+	private long expanded;
+	private long generated;
+	private long pruned;
+
+	/**
+	 * Constructs a search with no transposition table
+	 */
+	public IterativeDeepeningSearch() {
+		this(null);
+	}
+
+	/**
+	 * Constructs a search that remembers failed subtrees in a table
+	 * @param table the table to use, cleared at the start of each search, or null for none
+	 */
+	public IterativeDeepeningSearch(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Searches for the goal from the initial state. The puzzle must be solvable,
+	 * otherwise the search does not terminate.
+	 *
+	 * @param initialState
+	 * 		The initial starting state
+	 * @return
+	 * 		The goal node, whose parent chain leads back to the initial state
+	 */
+	public Node search(Node initialState) {
+		goal = null;
+		expanded = 0;
+		generated = 0;
+		pruned = 0;
+		BoardLayout layout = initialState.getLayout();
+		active = table != null && layout.isPacked() ? table : null;
+		if (active != null) {
+			active.clear();
+		}
+		int blank = initialState.getBlank();
+		int goalCell = layout.goalCell(0);
+		int limit = Math.abs(layout.rowOf(blank) - layout.rowOf(goalCell)) + Math.abs(layout.colOf(blank) - layout.colOf(goalCell));
+		while (!depthLimitedSearch(initialState, limit)) {
+			limit += 2;
+		}
+		return goal;
+	}
+
+	/**
+	 * Returns the number of nodes the last search expanded, counting nodes
+	 * expanded again by later iterations
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the number of successors the last search generated, counting
+	 * nodes generated again by later iterations
+	 * @return the number of generated nodes
+	 */
+	public long getNodesGenerated() {
+		return generated;
+	}
+
+	/**
+	 * Returns the number of nodes the last search skipped because they closed
+	 * a cycle or the transposition table showed their subtree had already failed
+	 * @return the number of pruned nodes
+	 */
+	public long getDuplicatesPruned() {
+		return pruned;
+	}
+
+	/**
+	 * Depth-first search below u, at most the given number of moves deep.
+	 *
+	 * @param u the node to search from
+	 * @param remaining the number of moves left before the cut-off
+	 * @return true if the goal was reached
+	 */
+	private boolean depthLimitedSearch(Node u, int remaining) {
+		if (u.isGoal()) {
+			goal = u;
+			return true;
+		}
+		if (remaining == 0) {
+			return false;
+		}
+		if (active != null && active.get(u.getState()) >= remaining) {
+			pruned++;
+			return false;
+		}
+		expanded++;
+		if ((expanded & (GraphSearch.CANCEL_CHECK_INTERVAL - 1)) == 0) {
+			GraphSearch.checkCancelled();
+		}
+		int back = Node.inverseOf(u.getActionIndex());
+		for (int direction = 0; direction < 4; direction++) {
+			if (direction == back) {
+				continue;
+			}
+			Node successor = u.move(direction);
+			if (successor == null) {
+				continue;
+			}
+			generated++;
+			if (onPath(successor)) {
+				pruned++;
+				continue;
+			}
+			if (depthLimitedSearch(successor, remaining - 1)) {
+				return true;
+			}
+		}
+		if (active != null) {
+			active.put(u.getState(), remaining);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether a node's state already appears among its ancestors. Every
+	 * move changes the blank's colour on a chessboard, so only ancestors an even
+	 * number of moves back can share its state.
+	 */
+	private static boolean onPath(Node u) {
+		long hash = u.getHash();
+		Node a = u.getParent().getParent();
+		while (a != null) {
+			if (a.getHash() == hash && a.equals(u)) {
+				return true;
+			}
+			a = a.getParent();
+			a = a == null ? null : a.getParent();
+		}
+		return false;
+	}
+}
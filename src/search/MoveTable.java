@@ -0,0 +1,246 @@
+package search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import util.PermutationRank;
+
+/**
+ * A table of optimal moves for every solvable state of a small board, indexed
+ * by permutation rank (see {@link PermutationRank}). Each state takes one byte:
+ * its distance to the goal in the high six bits and the direction the blank
+ * moves on an optimal path in the low two. A puzzle is solved by looking up
+ * and making moves until the distance reaches zero, with no search at all.
+ *
+ * The table is built by a breadth-first search backwards from the goal: a
+ * state first reached from a state at distance d is at distance d + 1, and its
+ * best move undoes the move that reached it. The 3x3 table is 181,440 bytes;
+ * tables are written to a file and mapped read-only when loaded.
+ */
+public class MoveTable {
+	/** Largest board whose table can be built: a 5x2 table is 1.8 MB. */
+	public static final int MAX_CELLS = 10;
+
+	private static final int MAGIC = 0x4D565431; // "MVT1"
+	private static final int UNSEEN = 0xFF;
+	private static final int MAX_DISTANCE = (UNSEEN >>> 2) - 1;
+	private static final int MOVE_MASK = 0x3;
+	private static final Map<BoardLayout, MoveTable> built = new ConcurrentHashMap<BoardLayout, MoveTable>();
+
+	private final BoardLayout layout;
+	private final ByteBuffer table;
+	private final int tableStart;
+
+	private MoveTable(BoardLayout layout, ByteBuffer table, int tableStart) {
+		this.layout = layout;
+		this.table = table;
+		this.tableStart = tableStart;
+	}
+
+	/**
+	 * Returns the table for a board shape, building it in memory on first use.
+	 * @param layout the board shape, with at most MAX_CELLS cells
+	 * @return the table shared by every caller
+	 */
+	public static MoveTable of(BoardLayout layout) {
+		MoveTable t = built.get(layout);
+		if (t == null) {
+			t = build(layout);
+			MoveTable raced = built.putIfAbsent(layout, t);
+			if (raced != null) {
+				t = raced;
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Returns the board shape the table is for
+	 * @return the board layout
+	 */
+	public BoardLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the optimal number of moves from a state to the goal
+	 * @param u a node of this table's board shape
+	 * @return the length of an optimal solution, or -1 if the puzzle is unsolvable
+	 */
+	public int distance(Node u) {
+		checkLayout(u);
+		if (!Solvability.isSolvable(u)) {
+			return -1;
+		}
+		return entry(u.getState(), u.getBlank()) >>> 2;
+	}
+
+	/**
+	 * Solves a puzzle by walking the table
+	 * @param u a node of this table's board shape
+	 * @return an optimal string of moves of the blank, or null if the puzzle is unsolvable
+	 */
+	public String solve(Node u) {
+		checkLayout(u);
+		if (!Solvability.isSolvable(u)) {
+			return null;
+		}
+		long state = u.getState();
+		int blank = u.getBlank();
+		int entry = entry(state, blank);
+		StringBuilder path = new StringBuilder(entry >>> 2);
+		while (entry >>> 2 > 0) {
+			int direction = entry & MOVE_MASK;
+			int to = layout.neighbour(direction, blank);
+			state = BoardLayout.slide(state, blank, to);
+			blank = to;
+			path.append(Node.actionName(direction));
+			int next = entry(state, blank);
+			if (next >>> 2 != (entry >>> 2) - 1) {
+				throw new IllegalStateException("Move table is corrupt");
+			}
+			entry = next;
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Loads a table from a file if it exists, otherwise builds it and writes it
+	 * to the file first.
+	 * @param file the table file
+	 * @param layout the board shape
+	 * @return the loaded table
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static MoveTable open(Path file, BoardLayout layout) throws IOException {
+		if (!Files.exists(file)) {
+			build(layout).write(file);
+		}
+		MoveTable t = load(file);
+		if (t.layout != layout) {
+			throw new IOException(file + " holds a table for a different board");
+		}
+		return t;
+	}
+
+	/**
+	 * Maps a file written by {@link #write(Path)} into memory.
+	 * @param file the table file
+	 * @return the table backed by the mapped file
+	 * @throws IOException if the file cannot be read or is not a move table
+	 */
+	public static MoveTable load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+				throw new IOException(file + " is not a move table");
+			}
+			BoardLayout layout = BoardLayout.of(buffer.getInt(), buffer.getInt());
+			if (layout.getCells() > MAX_CELLS || buffer.remaining() != PermutationRank.size(layout)) {
+				throw new IOException(file + " is truncated");
+			}
+			return new MoveTable(layout, buffer, buffer.position());
+		}
+	}
+
+	/**
+	 * Writes the table to a file that can later be mapped with {@link #load(Path)}.
+	 * @param file the table file to create or replace
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		try (OutputStream stream = Files.newOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(MAGIC);
+			out.writeInt(layout.getWidth());
+			out.writeInt(layout.getHeight());
+			ByteBuffer data = table.duplicate();
+			data.position(tableStart);
+			byte[] chunk = new byte[1 << 16];
+			while (data.hasRemaining()) {
+				int n = Math.min(chunk.length, data.remaining());
+				data.get(chunk, 0, n);
+				out.write(chunk, 0, n);
+			}
+		}
+	}
+
+	/**
+	 * Builds the table for a board shape in memory.
+	 * @param layout the board shape, with at most MAX_CELLS cells
+	 * @return the table
+	 */
+	public static MoveTable build(BoardLayout layout) {
+		if (layout.getCells() > MAX_CELLS) {
+			throw new IllegalArgumentException("Move tables need boards of at most " + MAX_CELLS + " cells");
+		}
+		byte[] table = new byte[(int) PermutationRank.size(layout)];
+		Arrays.fill(table, (byte) UNSEEN);
+		long[] queue = new long[table.length];
+		int head = 0;
+		int tail = 0;
+		long goal = layout.getGoal();
+		table[(int) PermutationRank.rank(layout, goal, layout.goalCell(0))] = 0;
+		queue[tail++] = goal;
+		while (head < tail) {
+			long state = queue[head++];
+			int blank = layout.findBlank(state);
+			int distance = (table[(int) PermutationRank.rank(layout, state, blank)] & 0xFF) >>> 2;
+			if (distance == MAX_DISTANCE) {
+				throw new IllegalStateException("Board too deep for a move table");
+			}
+			for (int direction = 0; direction < 4; direction++) {
+				int to = layout.neighbour(direction, blank);
+				if (to < 0) {
+					continue;
+				}
+				long next = BoardLayout.slide(state, blank, to);
+				int rank = (int) PermutationRank.rank(layout, next, to);
+				if ((table[rank] & 0xFF) == UNSEEN) {
+					// from next, the blank moves back the opposite way
+					table[rank] = (byte) ((distance + 1) << 2 | Node.inverseOf(direction));
+					queue[tail++] = next;
+				}
+			}
+		}
+		return new MoveTable(layout, ByteBuffer.wrap(table), 0);
+	}
+
+	private int entry(long state, int blank) {
+		return table.get(tableStart + (int) PermutationRank.rank(layout, state, blank)) & 0xFF;
+	}
+
+	private void checkLayout(Node u) {
+		if (u.getLayout() != layout) {
+			throw new IllegalArgumentException("Move table is for " + layout.getHeight() + "x" + layout.getWidth() + " boards");
+		}
+	}
+
+	/**
+	 * Builds the move table for a board and writes it to a file. Command-line
+	 * arguments are the file, the width and the height.
+	 * @param args The command-line arguments
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage: java search.MoveTable <file> <width> <height>");
+			System.exit(1);
+		}
+		BoardLayout layout = BoardLayout.of(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+		long start = System.currentTimeMillis();
+		build(layout).write(Path.of(args[0]));
+		System.out.println("Built " + args[0] + " in " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
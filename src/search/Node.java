@@ -1,31 +1,81 @@
 package search;
+
 import java.util.Arrays;
 
 /**
-* Implements NodeIfc interface
+* Implements NodeIfc interface. The board is stored in the encoding its layout
+* chooses by size (see {@link BoardLayout}) along with the cell holding the
+* blank. Boards of up to 25 cells are held in one or two longs, so creating a
+* successor allocates nothing but the node itself; larger boards also copy
+* their byte array.
 *
 */
 public class Node implements NodeIfc{
-  private int[][] state; //the board configuration
+  private final BoardLayout layout; //the shape of the board
+  private final long state; //the packed board configuration, or the low word of a wide one
+  private final long stateHigh; //the high word of a wide board, else 0
+  private final byte[] tiles; //the cells of a board too large to pack, else null
+  private final long hash; //the Zobrist hash of the board
+  private final short blank; //the cell holding the blank
+  private final byte action; //The index of the action that led from the parent to this node
   private Node parent;
-  private String action; //The action that led from the parent to this node
   private int depth;
+  private int estimate = NO_ESTIMATE; //the heuristic's distance to the goal, cached by the heuristic
 
   public static final String UP = "U";
 	public static final String DOWN = "D";
 	public static final String LEFT = "L";
 	public static final String RIGHT = "R";
+	/**
+	 * The goal of the 3x3 puzzle only.
+	 * @deprecated boards of any shape are supported; use
+	 * {@link BoardLayout#getGoalBoard()} of the puzzle's layout, or {@link #getGoal()}
+	 */
+	@Deprecated
 	public static final int[][] GOAL = {{1,2,3}, {4,5,6}, {7,8,0}};
 
+  public static final int UP_INDEX = 0;
+  public static final int DOWN_INDEX = 1;
+  public static final int LEFT_INDEX = 2;
+  public static final int RIGHT_INDEX = 3;
+  private static final String[] MOVES = {UP, DOWN, LEFT, RIGHT};
+  private static final byte NO_ACTION = -1;
+  public static final int NO_ESTIMATE = -1;
+
   /**
   * Constructs a Node with the specified board state. Sets the parent and
   * action to null and the depth to 0.
   * @param board the initial board state of this node
   */
   public Node(int[][] board){
-    state = board;
+    layout = BoardLayout.of(board[0].length, board.length);
+    BoardLayout.Encoding encoding = layout.getEncoding();
+    byte[] cells = layout.toTiles(board);
+    long low = 0;
+    long high = 0;
+    long h = 0;
+    int b = 0;
+    for(int i = 0; i < cells.length; i++){
+      int tile = cells[i] & 0xFF;
+      if(tile == 0){
+        b = i;
+      }
+      h ^= layout.zobrist(tile, i);
+      if(encoding == BoardLayout.Encoding.PACKED){
+        low |= (long) tile << (BoardLayout.BITS_PER_CELL * i);
+      }
+      else if(encoding == BoardLayout.Encoding.WIDE){
+        low |= BoardLayout.wideLow(tile, i);
+        high |= BoardLayout.wideHigh(tile, i);
+      }
+    }
+    state = low;
+    stateHigh = high;
+    tiles = encoding == BoardLayout.Encoding.BYTES ? cells : null;
+    hash = h;
+    blank = (short) b;
     parent = null;
-    action = null;
+    action = NO_ACTION;
     depth = 0;
   }
 
@@ -35,13 +85,48 @@ public class Node implements NodeIfc{
   * to the parent'd depth plus one.
   * @param parent the parent node of this Node
   * @param move the move to be made from the parent board to generate the new state
+  * @throws IllegalArgumentException if the move is not legal from the parent board
   */
   public Node(Node parent, String move){
-    this.state = makeMove(parent.getBoard(), move); //problem
+    this(parent, directionOf(move), parent.layout.neighbour(directionOf(move), parent.blank));
+  }
+
+  /**
+  * Constructs the successor reached by sliding the blank of the parent from its
+  * cell to the cell <code>to</code>.
+  */
+  private Node(Node parent, int direction, int to){
+    if(to < 0){
+      throw new IllegalArgumentException("Illegal move " + MOVES[direction]);
+    }
+    this.layout = parent.layout;
+    int from = parent.blank;
+    int tile;
+    if(layout.isPacked()){
+      tile = BoardLayout.tile(parent.state, to);
+      this.state = BoardLayout.slide(parent.state, from, to);
+      this.stateHigh = 0;
+      this.tiles = null;
+    }
+    else if(parent.tiles == null){
+      tile = BoardLayout.tile(parent.state, parent.stateHigh, to);
+      this.state = parent.state ^ BoardLayout.wideLow(tile, to) ^ BoardLayout.wideLow(tile, from);
+      this.stateHigh = parent.stateHigh ^ BoardLayout.wideHigh(tile, to) ^ BoardLayout.wideHigh(tile, from);
+      this.tiles = null;
+    }
+    else{
+      tile = parent.tiles[to] & 0xFF;
+      this.state = 0;
+      this.stateHigh = 0;
+      this.tiles = parent.tiles.clone();
+      this.tiles[from] = (byte) tile;
+      this.tiles[to] = 0;
+    }
+    this.hash = parent.hash ^ layout.zobrist(tile, to) ^ layout.zobrist(tile, from);
+    this.blank = (short) to;
     this.parent = parent;
-    action = move;
-    depth = parent.getDepth();
-    depth++;
+    action = (byte) direction;
+    depth = parent.depth + 1;
   }
 
 
@@ -54,39 +139,122 @@ public class Node implements NodeIfc{
   */
   public Node[] getSuccessors(){
     Node[] successors = new Node[4];
-    successors[0] = new Node(this, UP);
-    if(successors[0].getBoard() == null){
-      successors[0] = null;
+    for(int direction = 0; direction < 4; direction++){
+      successors[direction] = move(direction);
     }
-    successors[1] = new Node(this, DOWN);
-    if(successors[1].getBoard() == null){
-      successors[1] = null;
-    }
-    successors[2] = new Node(this, LEFT);
-    if(successors[2].getBoard() == null){
-      successors[2] = null;
+    return successors;
+  }
 
+  /**
+  * Returns the successor reached by moving the blank in the given direction.
+  * @param direction one of UP_INDEX, DOWN_INDEX, LEFT_INDEX or RIGHT_INDEX
+  * @return the successor node, or null if the move is illegal
+  */
+  public Node move(int direction){
+    int to = layout.neighbour(direction, blank);
+    if(to < 0){
+      return null;
     }
-    successors[3] = new Node(this, RIGHT);
-    if(successors[3].getBoard() == null){
-      successors[3] = null;
-    }
-    return successors;
+    return new Node(this, direction, to);
   }
 
   /**
-  * Returns the board corresponding to the state
+  * Returns the direction that undoes a move in the given direction.
+  * @param direction one of UP_INDEX, DOWN_INDEX, LEFT_INDEX or RIGHT_INDEX
+  * @return the opposite direction, or -1 if direction is -1
+  */
+  public static int inverseOf(int direction){
+    return direction < 0 ? -1 : direction ^ 1;
+  }
+
+  /**
+  * Returns the name of a direction, as used in solution strings.
+  * @param direction one of UP_INDEX, DOWN_INDEX, LEFT_INDEX or RIGHT_INDEX
+  * @return one of UP, DOWN, LEFT or RIGHT
+  */
+  public static String actionName(int direction){
+    return MOVES[direction];
+  }
+
+  /**
+  * Returns the board corresponding to the state. The board is unpacked into a
+  * newly allocated array on every call.
   * @return  A particular state of the 8-puzzle
   */
   public int[][] getBoard(){
+    if(layout.isPacked()){
+      return layout.unpack(state);
+    }
+    int[][] board = new int[layout.getHeight()][layout.getWidth()];
+    for(int i = 0; i < layout.getCells(); i++){
+      board[layout.rowOf(i)][layout.colOf(i)] = tileAt(i);
+    }
+    return board;
+  }
+
+  /**
+  * Returns the packed board corresponding to the state. Only boards whose
+  * layout is packed are identified by this value; check
+  * {@link BoardLayout#isPacked()} before using it as a key.
+  * @return the packed board, see {@link BoardLayout}
+  */
+  public long getState(){
     return state;
   }
 
+  /**
+  * Returns the 64-bit Zobrist hash of the board, maintained incrementally as
+  * moves are made
+  * @return the hash of the board
+  */
+  public long getHash(){
+    return hash;
+  }
+
+  /**
+  * Returns the layout describing the shape of the board
+  * @return the board layout
+  */
+  public BoardLayout getLayout(){
+    return layout;
+  }
+
+  /**
+  * Returns the cell holding the blank
+  * @return the row-major index of the blank
+  */
+  public int getBlank(){
+    return blank;
+  }
+
+  /**
+  * Returns the tile in a cell of the board
+  * @param cell the row-major index of the cell
+  * @return the tile in the cell, 0 for the blank
+  */
+  public int tileAt(int cell){
+    if(layout.isPacked()){
+      return BoardLayout.tile(state, cell);
+    }
+    if(tiles == null){
+      return BoardLayout.tile(state, stateHigh, cell);
+    }
+    return tiles[cell] & 0xFF;
+  }
+
   /**
   * Returns the action taken to get to this state
   * @return the action taken to get to this state
   */
   public String getAction(){
+    return action == NO_ACTION ? null : MOVES[action];
+  }
+
+  /**
+  * Returns the index of the action taken to get to this state
+  * @return one of UP_INDEX, DOWN_INDEX, LEFT_INDEX or RIGHT_INDEX, or -1 for the initial node
+  */
+  public int getActionIndex(){
     return action;
   }
 
@@ -96,7 +264,7 @@ public class Node implements NodeIfc{
   * @return The goal state
   */
   public int[][] getGoal(){
-    return GOAL;
+    return layout.getGoalBoard();
   }
 
   /**
@@ -116,20 +284,33 @@ public class Node implements NodeIfc{
     return depth;
   }
 
+  /**
+  * Returns the distance to the goal last estimated for this node by a heuristic.
+  * Heuristics that update their estimate incrementally read the parent's value
+  * to evaluate a successor from the one tile that moved.
+  * @return the cached estimate, or NO_ESTIMATE if the node has not been evaluated
+  */
+  public int getEstimate(){
+    return estimate;
+  }
+
+  /**
+  * Caches a heuristic's estimate of the distance from this node to the goal.
+  * A node tree should be evaluated by a single heuristic, since successors
+  * derive their estimate from their parent's.
+  * @param estimate the estimated number of moves to the goal
+  */
+  public void setEstimate(int estimate){
+    this.estimate = estimate;
+  }
+
   /**
   * Returns true if the state is the goal state and false otherwise
   * @return True if the state is the goal, false otherwise
   */
   public boolean isGoal(){
-    int[][] goal = {{1,2,3}, {4,5,6}, {7,8,0}};
-    for(int i = 0; i < 3; i++){
-      for(int j = 0; j < 3; j++){
-        if (state[i][j] != goal[i][j]){
-          return false;
-        }
-      }
-    }
-    return true;
+    return state == layout.getGoal() && stateHigh == layout.goalHigh()
+        && (tiles == null || Arrays.equals(tiles, layout.goalTiles()));
   }
 
 
@@ -140,15 +321,12 @@ public class Node implements NodeIfc{
   */
 
   /**
-  * Calculates a hashcode based on the node's board.
-  * @return an integer unique to the state of the board.
+  * Returns a hashcode based on the node's board.
+  * @return the Zobrist hash of the board, folded to an int.
   */
   @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.deepHashCode(state);
-        return result;
+        return (int) (hash ^ (hash >>> 32));
     }
 
 
@@ -162,15 +340,8 @@ public class Node implements NodeIfc{
   public boolean equals(Object obj){
     if(obj instanceof Node){
       Node other = (Node) obj;
-      boolean equal = true;
-      for(int i = 0; i < 3; i++){
-        for(int j = 0; j < 3; j++){
-          if (state[i][j] != other.getBoard()[i][j]){
-            return false;
-          }
-        }
-      }
-      return true;
+      return hash == other.hash && state == other.state && stateHigh == other.stateHigh
+          && layout == other.layout && (tiles == null || Arrays.equals(tiles, other.tiles));
     }
     return false;
   }
@@ -181,157 +352,32 @@ public class Node implements NodeIfc{
   */
   @Override
   public String toString(){
-    String ret = "";
-    for (int i = 0; i < 3; i++){
-      for (int j = 0; j <3; j++){
-        ret += state[i][j];
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < layout.getHeight(); i++){
+      for (int j = 0; j < layout.getWidth(); j++){
+        ret.append(tileAt(i * layout.getWidth() + j));
       }
-      ret += "\n";
+      ret.append("\n");
     }
-    return ret;
+    return ret.toString();
   }
 
 
   //MY PRIVATE METHODS:
 
   /**
-  * Returns updated state after the specified move of the blank tile.
-  * If move is not possible, returns null.
+  * Returns the direction index of a move.
   *
   * @param move
   *   The direction to move the blank tile
-  * @param board
-  *   The initial state of the board, to be changed
-  * @return the board state after the move, or null if move is illegal
+  * @return the index of the move
   */
-  private int[][] makeMove(int[][] board, String move){
-    if(move.equals(UP)){
-      //check to see if move is valid
-      for(int k = 0; k < 3; k++){
-        if(board[0][k] == 0){
-          //the blank tile cannot be moved up.
-          return null;
-        }
-      }
-      //if move is valid, update the board
-      int[][] newBoard = new int[3][3];
-      for (int i = 0; i < 3; i++){
-        newBoard[i] = board[i].clone();
-      }
-
-      boolean swapped = false;
-      for(int i = 1; i < 3; i++){
-          if(swapped){
-            break;
-          }
-        for(int j = 0; j < 3; j++){
-          //when find blank tile, swap with above tile
-          if(newBoard[i][j] == 0){
-            newBoard[i][j] = newBoard[i-1][j];
-            newBoard[i-1][j] = 0;
-            swapped = true;
-            break;
-          }
-        }
-      }
-      swapped = false;
-      return newBoard;
-    }
-    if(move.equals(DOWN)){
-      //check to see if move is valid
-      for(int k = 0; k < 3; k++){
-        if(board[2][k] == 0){
-          //the blank tile cannot be moved down.
-          return null;
-        }
-      }
-      //if move is valid, update the board
-      int[][] newBoard = new int[3][3];
-      for (int i = 0; i < 3; i++){
-        newBoard[i] = board[i].clone();
-      }
-      boolean swapped = false;
-      for(int i = 0; i < 2; i++){
-        if(swapped){
-          break;
-        }
-        for(int j = 0; j < 3; j++){
-          //when find blank tile, swap with above tile
-          if(newBoard[i][j] == 0){
-            newBoard[i][j] = newBoard[i+1][j];
-            newBoard[i+1][j] = 0;
-            swapped = true;
-            break;
-          }
-        }
+  private static int directionOf(String move){
+    for(int i = 0; i < MOVES.length; i++){
+      if(MOVES[i].equals(move)){
+        return i;
       }
-      swapped = false;
-      return newBoard;
     }
-    if(move.equals(LEFT)){
-      //check to see if move is valid
-      for(int k = 0; k < 3; k++){
-        if(board[k][0] == 0){
-          //the blank tile cannot be moved left.
-          return null;
-        }
-      }
-      boolean swapped = false;
-      //if move is valid, update the board
-      int[][] newBoard = new int[3][3];
-      for (int i = 0; i < 3; i++){
-        newBoard[i] = board[i].clone();
-      }
-      for(int i = 0; i < 3; i++){
-        if(swapped){
-          break;
-        }
-        for(int j = 1; j < 3; j++){
-          //when find blank tile, swap with above tile
-          if(newBoard[i][j] == 0){
-            newBoard[i][j] = newBoard[i][j-1];
-            newBoard[i][j-1] = 0;
-            swapped = true;
-            break;
-          }
-        }
-      }
-      swapped = false;
-      return newBoard;
-    }
-    if(move.equals(RIGHT)){
-      //check to see if move is valid
-      for(int k = 0; k < 3; k++){
-        if(board[k][2] == 0){
-          //the blank tile cannot be moved right.
-          return null;
-        }
-      }
-    int[][] newBoard = new int[3][3];
-    for (int i = 0; i < 3; i++){
-      newBoard[i] = board[i].clone();
-    }
-
-      boolean swapped = false;
-      //if move is valid, update the board
-      for(int i = 0; i < 3; i++){
-        if(swapped){
-          break;
-        }
-        for(int j = 0; j < 2; j++){
-          //when find blank tile, swap with above tile
-          if(newBoard[i][j] == 0){
-            newBoard[i][j] = newBoard[i][j+1];
-            newBoard[i][j+1] = 0;
-            swapped = true;
-            break;
-          }
-        }
-      }
-      swapped = false;
-      return newBoard;
-    }
-    //else invalid input move
-    return board;
+    throw new IllegalArgumentException("Unknown move " + move);
   }
 }
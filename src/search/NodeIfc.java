@@ -13,6 +13,12 @@ public interface NodeIfc{
 	public static final String DOWN = "D";
 	public static final String LEFT = "L";
 	public static final String RIGHT = "R";
+	/**
+	 * The goal of the 3x3 puzzle only.
+	 * @deprecated boards of any shape are supported; use
+	 * {@link BoardLayout#getGoalBoard()} of the puzzle's layout, or {@link #getGoal()}
+	 */
+	@Deprecated
 	public static final int[][] GOAL = {{1,2,3}, {4,5,6}, {7,8,0}};
 
 	/**
@@ -0,0 +1,293 @@
+package search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import heuristic.Heuristic;
+import util.PriorityQueue;
+
+/**
+ * Implements hash-distributed A* (HDA*). Each worker thread owns the states
+ * whose Zobrist hash maps to it, with its own frontier and its own table of the
+ * cheapest path found to each of its states. A worker expands its best node and
+ * sends every successor to the successor's owner, batching successors per owner
+ * into arrays posted to the owner's lock-free mailbox.
+ *
+ * Workers do not expand in global f order, so a state may be reached again
+ * along a cheaper path after it was expanded; it is then expanded again, and a
+ * goal only becomes the incumbent solution. Nodes whose f-cost is at least the
+ * incumbent's are discarded. A single counter tracks the nodes that are queued,
+ * in a mailbox or waiting in a batch; the search ends when it drops to zero, at
+ * which point every node cheaper than the incumbent has been expanded, so the
+ * incumbent is optimal for an admissible heuristic.
+ *
+ * The heuristic is shared by all workers and must be safe to call concurrently.
+ */
+public class ParallelAStar {
+	private static final int BATCH_SIZE = 64;
+	private static final int EXPANSIONS_PER_ROUND = 64;
+	private static final int SPINS_BEFORE_YIELD = 64;
+
+	private final Heuristic heuristic;
+	private final int threads;
+
+	private Worker[] workers;
+	private AtomicLong outstanding;
+	private AtomicReference<Throwable> failure;
+	private volatile boolean done;
+	private volatile int incumbentCost;
+	private Node incumbent;
+	private long expanded;
+
+	/**
+	 * Constructs a search using every available processor
+	 * @param heuristic a heuristic returning f-costs; it must be admissible for solutions to be optimal
+	 */
+	public ParallelAStar(Heuristic heuristic) {
+		this(heuristic, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a search using the given number of worker threads
+	 * @param heuristic a heuristic returning f-costs; it must be admissible for solutions to be optimal
+	 * @param threads the number of workers
+	 */
+	public ParallelAStar(Heuristic heuristic, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.heuristic = heuristic;
+		this.threads = threads;
+	}
+
+	/**
+	 * Searches for the goal from the initial state.
+	 *
+	 * @param initialState
+	 * 		The initial starting state
+	 * @return
+	 * 		The goal node, whose parent chain leads back to the initial state, or null if the puzzle is unsolvable
+	 * @throws java.util.concurrent.CancellationException
+	 * 		If the calling thread is interrupted while waiting for the workers
+	 */
+	public Node search(Node initialState) {
+		workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker(i);
+		}
+		outstanding = new AtomicLong(1);
+		failure = new AtomicReference<Throwable>();
+		done = false;
+		incumbentCost = Integer.MAX_VALUE;
+		incumbent = null;
+
+		heuristic.evaluate(initialState);
+		workers[ownerOf(initialState)].mailbox.add(new Node[] {initialState});
+
+		Thread[] running = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			running[i] = new Thread(workers[i], "hda-worker-" + i);
+			running[i].start();
+		}
+		try {
+			for (Thread t : running) {
+				t.join();
+			}
+		}
+		catch (InterruptedException e) {
+			done = true;
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Search cancelled");
+		}
+		if (failure.get() != null) {
+			throw new IllegalStateException("Search worker failed", failure.get());
+		}
+		expanded = 0;
+		for (Worker w : workers) {
+			expanded += w.expanded;
+		}
+		workers = null;
+		return incumbent;
+	}
+
+	/**
+	 * Returns the number of nodes the last search expanded, over all workers
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the worker that owns a node's state
+	 */
+	private int ownerOf(Node u) {
+		return (int) (((u.getHash() >>> 33) * threads) >>> 31);
+	}
+
+	/**
+	 * Records a goal if it is cheaper than the incumbent
+	 */
+	private synchronized void offer(Node goal) {
+		if (goal.getDepth() < incumbentCost) {
+			incumbent = goal;
+			incumbentCost = goal.getDepth();
+		}
+	}
+
+	private final class Worker implements Runnable {
+		private final int id;
+		private final ConcurrentLinkedQueue<Node[]> mailbox = new ConcurrentLinkedQueue<Node[]>();
+		private final Map<Node, Node> best = new HashMap<Node, Node>();
+		private final Node[][] outbox = new Node[threads][];
+		private final int[] outboxSize = new int[threads];
+		private final Node[] successors = new Node[4];
+		private PriorityQueue open = new PriorityQueue(heuristic);
+		private long released; // nodes dropped since the counter was last updated
+		private long expanded;
+
+		Worker(int id) {
+			this.id = id;
+			for (int i = 0; i < threads; i++) {
+				outbox[i] = new Node[BATCH_SIZE];
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				int idle = 0;
+				while (!done) {
+					boolean received = receive();
+					if (!open.isEmpty()) {
+						idle = 0;
+						for (int i = 0; i < EXPANSIONS_PER_ROUND && !open.isEmpty(); i++) {
+							expand(open.pop());
+						}
+						flush();
+						continue;
+					}
+					flush();
+					if (outstanding.get() == 0) {
+						done = true;
+					}
+					else if (received) {
+						idle = 0;
+					}
+					else if (++idle < SPINS_BEFORE_YIELD) {
+						Thread.onSpinWait();
+					}
+					else {
+						Thread.yield();
+					}
+				}
+			}
+			catch (Throwable t) {
+				failure.compareAndSet(null, t);
+				done = true;
+			}
+		}
+
+		/**
+		 * Accepts every batch waiting in the mailbox
+		 * @return true if any batch was waiting
+		 */
+		private boolean receive() {
+			boolean received = false;
+			Node[] batch;
+			while ((batch = mailbox.poll()) != null) {
+				received = true;
+				for (Node u : batch) {
+					accept(u);
+				}
+			}
+			release();
+			return received;
+		}
+
+		/**
+		 * Queues a node this worker owns, unless it is too expensive or its state
+		 * was already reached along a path at least as short
+		 */
+		private void accept(Node u) {
+			Node previous = best.get(u);
+			if (heuristic.evaluate(u) >= incumbentCost || (previous != null && previous.getDepth() <= u.getDepth())) {
+				released++;
+				return;
+			}
+			best.put(u, u);
+			if (open.contains(u)) {
+				released++; // the cheaper node replaces the queued one
+			}
+			open.push(u);
+		}
+
+		private void expand(Node u) {
+			if (heuristic.evaluate(u) >= incumbentCost) {
+				// everything queued here is at least as expensive
+				released += 1 + open.size();
+				open = new PriorityQueue(heuristic);
+				return;
+			}
+			if (u.isGoal()) {
+				offer(u);
+				released++;
+				return;
+			}
+			expanded++;
+			int back = Node.inverseOf(u.getActionIndex());
+			int count = 0;
+			for (int direction = 0; direction < 4; direction++) {
+				Node successor = direction == back ? null : u.move(direction);
+				if (successor != null && heuristic.evaluate(successor) < incumbentCost) {
+					successors[count++] = successor;
+				}
+			}
+			// count the successors before any of them can be sent; u itself is done
+			outstanding.addAndGet(count - 1 - released);
+			released = 0;
+			for (int i = 0; i < count; i++) {
+				Node successor = successors[i];
+				successors[i] = null;
+				int owner = ownerOf(successor);
+				if (owner == id) {
+					accept(successor);
+				}
+				else {
+					outbox[owner][outboxSize[owner]++] = successor;
+					if (outboxSize[owner] == BATCH_SIZE) {
+						workers[owner].mailbox.add(outbox[owner]);
+						outbox[owner] = new Node[BATCH_SIZE];
+						outboxSize[owner] = 0;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Sends every partly filled batch
+		 */
+		private void flush() {
+			for (int owner = 0; owner < threads; owner++) {
+				if (outboxSize[owner] > 0) {
+					workers[owner].mailbox.add(Arrays.copyOf(outbox[owner], outboxSize[owner]));
+					Arrays.fill(outbox[owner], 0, outboxSize[owner], null);
+					outboxSize[owner] = 0;
+				}
+			}
+			release();
+		}
+
+		private void release() {
+			if (released > 0) {
+				outstanding.addAndGet(-released);
+				released = 0;
+			}
+		}
+	}
+}
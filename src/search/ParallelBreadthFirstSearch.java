@@ -0,0 +1,156 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import util.ClosedSet;
+
+/**
+ * Implements layer-synchronous parallel breadth-first search. Each depth layer
+ * is an array of nodes split into fixed-size chunks, and the chunks are expanded
+ * in parallel on a fork/join pool. Successors are deduplicated as they are
+ * generated against a thread-safe visited set (see
+ * {@link ClosedSet#concurrentForLayout}), so each state enters exactly one chunk
+ * of the next layer; the chunks' results are then concatenated into the next
+ * layer. The first goal generated in a layer is returned once the layer is
+ * complete, which keeps the solution shortest.
+ */
+public class ParallelBreadthFirstSearch {
+	private static final int CHUNK_SIZE = 1024;
+
+	private final int threads;
+	private int statesSeen;
+	private long expanded;
+
+	/**
+	 * Constructs a search using every available processor
+	 */
+	public ParallelBreadthFirstSearch() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a search using the given number of worker threads
+	 * @param threads the parallelism of the fork/join pool
+	 */
+	public ParallelBreadthFirstSearch(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Searches for the goal from the initial state.
+	 *
+	 * @param initialState
+	 * 		The initial starting state
+	 * @return
+	 * 		The goal node, whose parent chain leads back to the initial state, or null if the puzzle is unsolvable
+	 * @throws java.util.concurrent.CancellationException
+	 * 		If the calling thread is interrupted while waiting for the workers
+	 */
+	public Node search(Node initialState) {
+		ClosedSet visited = ClosedSet.concurrentForLayout(initialState.getLayout());
+		visited.add(initialState);
+		if (initialState.isGoal()) {
+			statesSeen = 1;
+			expanded = 0;
+			return initialState;
+		}
+		AtomicReference<Node> goal = new AtomicReference<Node>();
+		LongAdder expansions = new LongAdder();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			Node[] layer = {initialState};
+			while (layer.length > 0) {
+				GraphSearch.checkCancelled();
+				final Node[] current = layer;
+				List<Callable<Node[]>> chunks = new ArrayList<Callable<Node[]>>();
+				for (int start = 0; start < current.length; start += CHUNK_SIZE) {
+					final int from = start;
+					final int to = Math.min(start + CHUNK_SIZE, current.length);
+					chunks.add(() -> expand(current, from, to, visited, goal, expansions));
+				}
+				List<Future<Node[]>> results = pool.invokeAll(chunks);
+				if (goal.get() != null) {
+					return goal.get();
+				}
+				Node[][] parts = new Node[results.size()][];
+				int total = 0;
+				for (int i = 0; i < parts.length; i++) {
+					parts[i] = results.get(i).get();
+					total += parts[i].length;
+				}
+				layer = new Node[total];
+				int offset = 0;
+				for (Node[] part : parts) {
+					System.arraycopy(part, 0, layer, offset, part.length);
+					offset += part.length;
+				}
+			}
+			return null;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Search cancelled");
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Search worker failed", e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+			statesSeen = visited.size();
+			expanded = expansions.sum();
+		}
+	}
+
+	/**
+	 * Returns the number of distinct states the last search generated
+	 * @return the size of the visited set
+	 */
+	public int getStatesSeen() {
+		return statesSeen;
+	}
+
+	/**
+	 * Returns the number of nodes the last search expanded
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Expands the nodes of a layer between two indices
+	 * @return the successors whose states had not been visited before
+	 */
+	private static Node[] expand(Node[] layer, int from, int to, ClosedSet visited, AtomicReference<Node> goal, LongAdder expansions) {
+		Node[] successors = new Node[(to - from) * 4];
+		int count = 0;
+		int i = from;
+		for (; i < to && goal.get() == null; i++) {
+			Node u = layer[i];
+			int back = Node.inverseOf(u.getActionIndex());
+			for (int direction = 0; direction < 4; direction++) {
+				Node successor = direction == back ? null : u.move(direction);
+				if (successor != null && visited.add(successor)) {
+					if (successor.isGoal()) {
+						goal.compareAndSet(null, successor);
+					}
+					successors[count++] = successor;
+				}
+			}
+		}
+		expansions.add(i - from);
+		return Arrays.copyOf(successors, count);
+	}
+}
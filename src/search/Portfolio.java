@@ -0,0 +1,217 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import heuristic.Heuristic;
+
+/**
+ * Solves a puzzle with several solvers at once and returns the first answer,
+ * cancelling the others. Which strategy is fastest depends on the puzzle, so
+ * racing a few of them bounds the time of every puzzle by that of the best
+ * solver for it.
+ *
+ * Each member is marked optimal or not. By default only an answer from an
+ * optimal member, or one its search proved shortest (see
+ * {@link SearchResult#getSuboptimalityBound()}), wins the race; any other
+ * answer is kept and returned only if every optimal member fails. With
+ * {@link #setAcceptSuboptimal(boolean)} the first answer of any member wins.
+ *
+ * Losing members are cancelled by interrupting them, and stop at their next
+ * cancellation check (see {@link GraphSearch}). A portfolio solves one puzzle
+ * at a time; the heuristics of its members must be safe to call from several
+ * threads if they are shared.
+ */
+public class Portfolio implements AutoCloseable {
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final List<Member> members = new ArrayList<Member>();
+	private boolean acceptSuboptimal;
+	private String winner;
+
+	/**
+	 * Constructs an empty portfolio that runs its members on threads of its own,
+	 * shut down by {@link #close()}
+	 */
+	public Portfolio() {
+		this(Executors.newCachedThreadPool(), true);
+	}
+
+	/**
+	 * Constructs an empty portfolio that runs its members on an executor owned
+	 * by the caller. The executor must be able to run every member at once.
+	 * @param executor the executor to run members on; it is not shut down by {@link #close()}
+	 */
+	public Portfolio(ExecutorService executor) {
+		this(executor, false);
+	}
+
+	private Portfolio(ExecutorService executor, boolean ownsExecutor) {
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/**
+	 * Adds a member that solves with a strategy and heuristic. Every strategy
+	 * but DFS and the weighted A* strategies is taken to be optimal, so the
+	 * heuristic must be admissible.
+	 * @param strategy the search algorithm
+	 * @param heuristic the heuristic guiding it; ignored by BFS and DFS
+	 * @return this portfolio
+	 */
+	public Portfolio add(Strategy strategy, Heuristic heuristic) {
+		String name = heuristic == null ? strategy.name() : strategy.name() + "/" + heuristic.getClass().getSimpleName();
+		return add(name, new GraphSearch(strategy, heuristic), strategy.isOptimal());
+	}
+
+	/**
+	 * Adds a member that solves with a configured solver
+	 * @param name the name reported by {@link #getWinner()} when this member wins
+	 * @param search the solver, used by this portfolio only
+	 * @param optimal true if the solver always returns shortest solutions
+	 * @return this portfolio
+	 */
+	public Portfolio add(String name, GraphSearch search, boolean optimal) {
+		search.setVerbose(false);
+		members.add(new Member(name, search, optimal));
+		return this;
+	}
+
+	/**
+	 * Sets whether the first answer of any member wins, rather than the first
+	 * answer of an optimal member
+	 * @param accept true to accept solutions that may not be shortest
+	 */
+	public void setAcceptSuboptimal(boolean accept) {
+		acceptSuboptimal = accept;
+	}
+
+	/**
+	 * Solves a puzzle with every member at once
+	 * @param puzzle a starting puzzle configuration
+	 * @return the winning solution, or null if the puzzle is unsolvable
+	 */
+	public String solvePuzzle(int[][] puzzle) {
+		return solve(puzzle).getPath();
+	}
+
+	/**
+	 * Solves a puzzle with every member at once and returns the winner's result
+	 * @param puzzle a starting puzzle configuration
+	 * @return the result of the winning member
+	 * @throws IllegalStateException if every member failed
+	 * @throws CancellationException if the calling thread is interrupted
+	 */
+	public SearchResult solve(int[][] puzzle) {
+		if (members.isEmpty()) {
+			throw new IllegalStateException("The portfolio has no members");
+		}
+		winner = null;
+		CompletionService<Outcome> completed = new ExecutorCompletionService<Outcome>(executor);
+		List<Future<Outcome>> running = new ArrayList<Future<Outcome>>(members.size());
+		for (Member member : members) {
+			running.add(completed.submit(() -> member.solve(puzzle)));
+		}
+		Outcome fallback = null;
+		RuntimeException failure = null;
+		try {
+			for (int pending = running.size(); pending > 0; pending--) {
+				Outcome outcome;
+				try {
+					outcome = completed.take().get();
+				}
+				catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+					}
+					continue;
+				}
+				// an unsolvable puzzle is unsolvable for every member, so that answer is final too
+				if (outcome.member.optimal || acceptSuboptimal || !outcome.result.isSolved()
+						|| outcome.result.getSuboptimalityBound() <= 1) {
+					winner = outcome.member.name;
+					return outcome.result;
+				}
+				if (fallback == null) {
+					fallback = outcome;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Portfolio interrupted");
+		}
+		finally {
+			for (Future<Outcome> f : running) {
+				f.cancel(true);
+			}
+		}
+		if (fallback != null) {
+			winner = fallback.member.name;
+			return fallback.result;
+		}
+		throw new IllegalStateException("Every member of the portfolio failed", failure);
+	}
+
+	/**
+	 * Returns the name of the member whose answer the last solve returned
+	 * @return the member's name, or null if no solve has succeeded yet
+	 */
+	public String getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Shuts down the executor if this portfolio created it, interrupting any
+	 * members still running
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * A solver racing in the portfolio
+	 */
+	private static final class Member {
+		final String name;
+		final GraphSearch search;
+		final boolean optimal;
+
+		Member(String name, GraphSearch search, boolean optimal) {
+			this.name = name;
+			this.search = search;
+			this.optimal = optimal;
+		}
+
+		/**
+		 * Solves a puzzle. A member cancelled in one race may still be stopping
+		 * when the next race starts, so its solver is locked while in use.
+		 */
+		synchronized Outcome solve(int[][] puzzle) {
+			return new Outcome(this, search.solve(puzzle));
+		}
+	}
+
+	/**
+	 * A member's result
+	 */
+	private static final class Outcome {
+		final Member member;
+		final SearchResult result;
+
+		Outcome(Member member, SearchResult result) {
+			this.member = member;
+			this.result = result;
+		}
+	}
+}
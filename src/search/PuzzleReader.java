@@ -0,0 +1,113 @@
+package search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads puzzles in the format of the files in the puzzles directory: one row
+ * of the board per line, tiles separated by spaces and the blank written as
+ * "." or 0. A stream may hold several puzzles separated by blank lines, and
+ * lines starting with # are ignored.
+ */
+public final class PuzzleReader {
+	private final BufferedReader in;
+	private int lineNumber;
+
+	/**
+	 * Constructs a reader of the puzzles in a stream
+	 * @param in the stream to read; it is not closed by this reader
+	 */
+	public PuzzleReader(Reader in) {
+		this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+	}
+
+	/**
+	 * Reads the next puzzle
+	 * @return the board, or null at the end of the stream
+	 * @throws IOException if the stream cannot be read
+	 * @throws IllegalArgumentException if the puzzle is badly formed
+	 */
+	public int[][] next() throws IOException {
+		List<int[]> rows = new ArrayList<int[]>();
+		String line;
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.startsWith("#")) {
+				continue;
+			}
+			if (line.isEmpty()) {
+				if (rows.isEmpty()) {
+					continue;
+				}
+				break;
+			}
+			int[] row = parseRow(line);
+			if (!rows.isEmpty() && row.length != rows.get(0).length) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": expected " + rows.get(0).length + " tiles but found " + row.length);
+			}
+			rows.add(row);
+		}
+		return rows.isEmpty() ? null : rows.toArray(new int[rows.size()][]);
+	}
+
+	/**
+	 * Reads every puzzle left in the stream
+	 * @return the boards in the order they appear
+	 * @throws IOException if the stream cannot be read
+	 * @throws IllegalArgumentException if a puzzle is badly formed
+	 */
+	public List<int[][]> readAll() throws IOException {
+		List<int[][]> puzzles = new ArrayList<int[][]>();
+		int[][] puzzle;
+		while ((puzzle = next()) != null) {
+			puzzles.add(puzzle);
+		}
+		return puzzles;
+	}
+
+	/**
+	 * Reads the single puzzle in a file
+	 * @param file a puzzle file
+	 * @return the board
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file does not hold exactly one well-formed puzzle
+	 */
+	public static int[][] read(Path file) throws IOException {
+		try (Reader stream = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+			PuzzleReader reader = new PuzzleReader(stream);
+			int[][] puzzle = reader.next();
+			if (puzzle == null) {
+				throw new IllegalArgumentException(file + " holds no puzzle");
+			}
+			if (reader.next() != null) {
+				throw new IllegalArgumentException(file + " holds more than one puzzle");
+			}
+			return puzzle;
+		}
+	}
+
+	private int[] parseRow(String line) {
+		String[] tokens = line.split("\\s+");
+		int[] row = new int[tokens.length];
+		for (int i = 0; i < tokens.length; i++) {
+			if (tokens[i].equals(".")) {
+				row[i] = 0;
+				continue;
+			}
+			try {
+				row[i] = Integer.parseInt(tokens[i]);
+			}
+			catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": \"" + tokens[i] + "\" is not a tile");
+			}
+		}
+		return row;
+	}
+}
@@ -0,0 +1,179 @@
+package search;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import heuristic.Heuristic;
+
+/**
+ * Java Flight Recorder events emitted by {@link GraphSearch}. They are only
+ * recorded while a recording has them enabled, e.g. with
+ * {@code java -XX:StartFlightRecording ...}, and heuristic calls are only
+ * timed then. Event classes are not even loaded until the recorder has been
+ * started, because loading the first one costs a few hundred milliseconds.
+ */
+final class SearchEvents {
+	private SearchEvents() {}
+
+	/**
+	 * Returns whether the flight recorder has been started in this JVM
+	 */
+	static boolean recorderStarted() {
+		return FlightRecorder.isInitialized();
+	}
+
+	/**
+	 * Returns a heuristic that records its evaluation time if a recording has
+	 * HeuristicTime events enabled, otherwise the heuristic itself
+	 */
+	static Heuristic timed(Heuristic heuristic) {
+		if (heuristic == null || !recorderStarted() || !new HeuristicTime().isEnabled()) {
+			return heuristic;
+		}
+		return new TimedHeuristic(heuristic);
+	}
+
+	/**
+	 * Commits a FrontierSample event if a recording has them enabled
+	 */
+	static void sampleFrontier(int frontierSize, int closedSize, long nodesExpanded, int depth) {
+		if (!recorderStarted()) {
+			return;
+		}
+		FrontierSample event = new FrontierSample();
+		if (event.isEnabled()) {
+			event.frontierSize = frontierSize;
+			event.closedSize = closedSize;
+			event.nodesExpanded = nodesExpanded;
+			event.depth = depth;
+			event.commit();
+		}
+	}
+
+	/**
+	 * One call to solvePuzzle, from the start of the search to its end
+	 */
+	@Name("search.Search")
+	@Label("Search")
+	@Category("Graph Search")
+	@Description("A puzzle solved by GraphSearch")
+	@StackTrace(false)
+	static final class Search extends Event {
+		@Label("Strategy")
+		String strategy;
+
+		@Label("Heuristic")
+		String heuristic;
+
+		@Label("Board Cells")
+		int cells;
+
+		@Label("Solution Length")
+		@Description("Number of moves, or -1 if the puzzle is unsolvable")
+		int solutionLength;
+
+		@Label("Nodes Expanded")
+		long nodesExpanded;
+
+		@Label("Nodes Generated")
+		long nodesGenerated;
+
+		@Label("Peak Frontier")
+		int peakFrontier;
+
+		@Label("Closed Size")
+		int closedSize;
+	}
+
+	/**
+	 * The size of the frontier and closed set, taken each time GraphSearch checks for cancellation
+	 */
+	@Name("search.FrontierSample")
+	@Label("Frontier Sample")
+	@Category("Graph Search")
+	@StackTrace(false)
+	static final class FrontierSample extends Event {
+		@Label("Frontier Size")
+		int frontierSize;
+
+		@Label("Closed Size")
+		int closedSize;
+
+		@Label("Nodes Expanded")
+		long nodesExpanded;
+
+		@Label("Depth")
+		@Description("Depth of the node being expanded")
+		int depth;
+	}
+
+	/**
+	 * The time spent evaluating the heuristic during one search
+	 */
+	@Name("search.HeuristicTime")
+	@Label("Heuristic Evaluation Time")
+	@Category("Graph Search")
+	@StackTrace(false)
+	static final class HeuristicTime extends Event {
+		@Label("Heuristic")
+		String heuristic;
+
+		@Label("Evaluations")
+		long evaluations;
+
+		@Label("Total Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long totalTime;
+
+		@Label("Mean Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long meanTime;
+	}
+
+	/**
+	 * Wraps a heuristic to count its calls and the time they take. Parallel
+	 * strategies call it from several threads at once.
+	 */
+	static final class TimedHeuristic implements Heuristic {
+		private final Heuristic heuristic;
+		private final LongAdder evaluations = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		TimedHeuristic(Heuristic heuristic) {
+			this.heuristic = heuristic;
+		}
+
+		@Override
+		public int evaluate(Node node) {
+			long start = System.nanoTime();
+			int value = heuristic.evaluate(node);
+			nanos.add(System.nanoTime() - start);
+			evaluations.increment();
+			return value;
+		}
+
+		/**
+		 * Commits a HeuristicTime event with the totals so far, unless the
+		 * search never called the heuristic
+		 */
+		void commit() {
+			HeuristicTime event = new HeuristicTime();
+			event.evaluations = evaluations.sum();
+			if (event.evaluations == 0) {
+				return;
+			}
+			event.heuristic = heuristic.getClass().getSimpleName();
+			event.totalTime = nanos.sum();
+			event.meanTime = event.totalTime / event.evaluations;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package search;
+
+/**
+ * Receives the events of a graph search as they happen, e.g. to trace or
+ * visualise it. Every method does nothing by default, so a listener only
+ * overrides the events it needs. Callbacks run on the searching thread in the
+ * middle of the search loop and should return quickly.
+ *
+ * Listeners are called by the strategies that run the GraphSearch loop itself,
+ * BFS, DFS, A*, bucket A* and weighted A*, and by anytime A*. When no
+ * listener is set the loop only tests a field for null, so there is no cost
+ * to leaving the hooks in place.
+ */
+public interface SearchListener {
+
+	/**
+	 * Called when a node is taken from the frontier to have its successors generated
+	 * @param u the node being expanded
+	 */
+	public default void onExpand(Node u) {}
+
+	/**
+	 * Called for every successor generated, before it is checked against the explored states
+	 * @param u the successor
+	 */
+	public default void onGenerate(Node u) {}
+
+	/**
+	 * Called when a node is discarded because its state has already been
+	 * explored, either when it is generated or when it is taken from the frontier
+	 * @param u the discarded node
+	 */
+	public default void onDuplicate(Node u) {}
+
+	/**
+	 * Called when the goal is taken from the frontier, just before the search returns
+	 * @param u the goal node, whose parent chain leads back to the initial state
+	 */
+	public default void onGoal(Node u) {}
+
+	/**
+	 * Called by anytime A* each time it finds a shorter solution or proves a
+	 * tighter bound on its current one
+	 * @param u the goal node of the solution
+	 * @param bound the solution is at most this many times longer than the shortest, 1 if it is shortest
+	 */
+	public default void onImprovement(Node u, double bound) {}
+}
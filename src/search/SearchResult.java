@@ -0,0 +1,164 @@
+package search;
+
+/**
+ * The outcome of one search: the solution and the statistics gathered while
+ * finding it. Statistics a strategy does not keep are 0; for instance IDA*
+ * has no closed set, and the table strategy expands nothing.
+ */
+public final class SearchResult {
+	private final String path;
+	private final long nodesExpanded;
+	private final long nodesGenerated;
+	private final int peakFrontier;
+	private final int closedSize;
+	private final long duplicatesPruned;
+	private final long wallNanos;
+	private final long cpuNanos;
+	private final double bound;
+
+	SearchResult(String path, long nodesExpanded, long nodesGenerated, int peakFrontier, int closedSize,
+			long duplicatesPruned, long wallNanos, long cpuNanos, double bound) {
+		this.path = path;
+		this.nodesExpanded = nodesExpanded;
+		this.nodesGenerated = nodesGenerated;
+		this.peakFrontier = peakFrontier;
+		this.closedSize = closedSize;
+		this.duplicatesPruned = duplicatesPruned;
+		this.wallNanos = wallNanos;
+		this.cpuNanos = cpuNanos;
+		this.bound = bound;
+	}
+
+	/**
+	 * Returns the moves of the blank that solve the puzzle
+	 * @return a string of U, D, L and R, or null if the puzzle is unsolvable
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns whether a solution was found
+	 * @return true if the puzzle was solved
+	 */
+	public boolean isSolved() {
+		return path != null;
+	}
+
+	/**
+	 * Returns the number of nodes whose successors were generated
+	 * @return the number of expansions
+	 */
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	/**
+	 * Returns the number of successors generated, whether or not they were kept
+	 * @return the number of generated nodes
+	 */
+	public long getNodesGenerated() {
+		return nodesGenerated;
+	}
+
+	/**
+	 * Returns the largest number of nodes the frontier held at once
+	 * @return the peak frontier size
+	 */
+	public int getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	/**
+	 * Returns the number of distinct states explored when the search ended
+	 * @return the size of the closed set
+	 */
+	public int getClosedSize() {
+		return closedSize;
+	}
+
+	/**
+	 * Returns the number of generated or popped nodes discarded because their
+	 * state had already been explored
+	 * @return the number of duplicates pruned
+	 */
+	public long getDuplicatesPruned() {
+		return duplicatesPruned;
+	}
+
+	/**
+	 * Returns the wall-clock time the search took
+	 * @return the elapsed time in nanoseconds
+	 */
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * Returns the CPU time of the thread that ran the search. Worker threads
+	 * of the parallel strategies are not included.
+	 * @return the CPU time in nanoseconds, or -1 if it was not measured or the JVM cannot measure it
+	 */
+	public long getCpuNanos() {
+		return cpuNanos;
+	}
+
+	/**
+	 * Returns how much longer than the shortest the solution can be, as proven
+	 * by the search. Optimal strategies and cached solutions prove 1, weighted
+	 * A* its weight; anytime A* reports the bound it reached before its time
+	 * ran out.
+	 * @return the suboptimality bound, or NaN if there is no solution or it came with none, e.g. from DFS
+	 */
+	public double getSuboptimalityBound() {
+		return bound;
+	}
+
+	/**
+	 * Returns the effective branching factor b*: the branching factor a uniform
+	 * tree as deep as the solution would need to contain the generated nodes,
+	 * i.e. the b* with N + 1 = 1 + b* + b*^2 + ... + b*^d.
+	 * @return b*, or 0 if nothing was generated or there is no solution of positive length
+	 */
+	public double getEffectiveBranchingFactor() {
+		if (path == null || path.isEmpty() || nodesGenerated == 0) {
+			return 0;
+		}
+		int depth = path.length();
+		double low = 0;
+		double high = Math.max(1, nodesGenerated);
+		// the tree size grows with b, so bisect until the interval is negligible
+		for (int i = 0; i < 100 && high - low > 1e-9; i++) {
+			double b = (low + high) / 2;
+			if (treeSize(b, depth) < nodesGenerated) {
+				low = b;
+			}
+			else {
+				high = b;
+			}
+		}
+		return (low + high) / 2;
+	}
+
+	/**
+	 * Returns b + b^2 + ... + b^depth
+	 */
+	private static double treeSize(double b, int depth) {
+		double size = 0;
+		double level = 1;
+		for (int i = 0; i < depth && size < Double.MAX_VALUE; i++) {
+			level *= b;
+			size += level;
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return (path == null ? "unsolvable" : path.length() + " moves") + ", " + nodesExpanded + " expanded, "
+				+ nodesGenerated + " generated, peak frontier " + peakFrontier + ", closed " + closedSize + ", "
+				+ duplicatesPruned + " duplicates pruned, b* " + String.format("%.3f", getEffectiveBranchingFactor())
+				+ (path == null || bound == 1 || Double.isNaN(bound) ? "" : String.format(", within %.2fx of shortest", bound))
+				+ ", " + wallNanos / 1000 + "us wall, " + (cpuNanos < 0 ? "?" : cpuNanos / 1000 + "us") + " cpu";
+	}
+}
@@ -0,0 +1,265 @@
+package search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of solutions keyed by board shape and packed state, evicting
+ * the least recently used state when full. When a solution is added, every
+ * state along its path is indexed too, since the rest of a solution from any
+ * state on it also solves that state (and is optimal if the whole solution
+ * is). The entries of one solution share its path string and differ only in
+ * the offset their suffix starts at. Solvers read entries back as shortest
+ * solutions, so only shortest solutions should be added.
+ *
+ * Only boards that pack into a long are cached. The cache is safe to share
+ * between threads, and can be saved to a file and loaded again so that it
+ * survives restarts.
+ */
+public class SolutionCache {
+	private static final int MAGIC = 0x534C4331; // "SLC1"
+
+	private final int capacity;
+	private final LinkedHashMap<Key, Suffix> entries;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Constructs an empty cache
+	 * @param capacity the largest number of states to remember
+	 */
+	public SolutionCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.capacity = capacity;
+		entries = new LinkedHashMap<Key, Suffix>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Suffix> eldest) {
+				return size() > SolutionCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached solution for a state
+	 * @param u the initial state
+	 * @return the moves of the blank that solve it, or null if it is not cached
+	 */
+	public synchronized String get(Node u) {
+		Suffix suffix = u.getLayout().isPacked() ? entries.get(new Key(u)) : null;
+		if (suffix == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return suffix.path.substring(suffix.offset);
+	}
+
+	/**
+	 * Caches a solution and the rest of it from every state along its path.
+	 * A state that is already cached keeps its entry unless the new solution
+	 * from it is shorter.
+	 * @param u the initial state
+	 * @param solution the moves of the blank that solve it
+	 */
+	public synchronized void put(Node u, String solution) {
+		if (!u.getLayout().isPacked()) {
+			return;
+		}
+		// index the path from its end, so that the initial state is the most recently used
+		List<Key> keys = new ArrayList<Key>(solution.length() + 1);
+		Node c = u;
+		keys.add(new Key(c));
+		for (int i = 0; i < solution.length(); i++) {
+			c = c.move(directionOf(solution.charAt(i)));
+			if (c == null) {
+				throw new IllegalArgumentException("Solution makes an illegal move at " + i);
+			}
+			keys.add(new Key(c));
+		}
+		for (int i = keys.size() - 1; i >= 0; i--) {
+			Key key = keys.get(i);
+			Suffix cached = entries.get(key);
+			if (cached == null || cached.path.length() - cached.offset > solution.length() - i) {
+				entries.put(key, new Suffix(solution, i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cached states
+	 * @return the number of entries
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of lookups that found a solution
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups that found nothing
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Writes the cache to a file, least recently used entry first. Each distinct
+	 * solution is written once.
+	 * @param file the file to create or replace
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void save(Path file) throws IOException {
+		Map<String, Integer> paths = new IdentityHashMap<String, Integer>();
+		for (Suffix suffix : entries.values()) {
+			if (!paths.containsKey(suffix.path)) {
+				paths.put(suffix.path, paths.size());
+			}
+		}
+		String[] byIndex = new String[paths.size()];
+		for (Map.Entry<String, Integer> e : paths.entrySet()) {
+			byIndex[e.getValue()] = e.getKey();
+		}
+		try (OutputStream stream = Files.newOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(MAGIC);
+			out.writeInt(byIndex.length);
+			for (String path : byIndex) {
+				out.writeInt(path.length());
+				out.writeBytes(path);
+			}
+			out.writeInt(entries.size());
+			for (Map.Entry<Key, Suffix> e : entries.entrySet()) {
+				Key key = e.getKey();
+				out.writeByte(key.layout.getWidth());
+				out.writeByte(key.layout.getHeight());
+				out.writeLong(key.state);
+				out.writeInt(paths.get(e.getValue().path));
+				out.writeInt(e.getValue().offset);
+			}
+		}
+	}
+
+	/**
+	 * Reads a cache written by {@link #save(Path)}. If the file holds more
+	 * entries than the capacity, the least recently used are dropped.
+	 * @param file the cache file
+	 * @param capacity the largest number of states to remember
+	 * @return the loaded cache
+	 * @throws IOException if the file cannot be read or is not a solution cache
+	 */
+	public static SolutionCache load(Path file, int capacity) throws IOException {
+		SolutionCache cache = new SolutionCache(capacity);
+		try (InputStream stream = Files.newInputStream(file);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a solution cache");
+			}
+			String[] paths = new String[in.readInt()];
+			for (int i = 0; i < paths.length; i++) {
+				byte[] moves = new byte[in.readInt()];
+				in.readFully(moves);
+				paths[i] = new String(moves, StandardCharsets.US_ASCII);
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				BoardLayout layout = BoardLayout.of(in.readUnsignedByte(), in.readUnsignedByte());
+				long state = in.readLong();
+				String path = paths[in.readInt()];
+				int offset = in.readInt();
+				if (!layout.isPacked() || offset < 0 || offset > path.length()) {
+					throw new IOException(file + " is corrupt");
+				}
+				cache.entries.put(new Key(layout, state), new Suffix(path, offset));
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Loads a cache from a file if it exists, otherwise returns an empty one.
+	 * @param file the cache file
+	 * @param capacity the largest number of states to remember
+	 * @return the cache
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public static SolutionCache open(Path file, int capacity) throws IOException {
+		return Files.exists(file) ? load(file, capacity) : new SolutionCache(capacity);
+	}
+
+	private static int directionOf(char move) {
+		for (int direction = 0; direction < 4; direction++) {
+			if (Node.actionName(direction).charAt(0) == move) {
+				return direction;
+			}
+		}
+		throw new IllegalArgumentException("Unknown move " + move);
+	}
+
+	/**
+	 * A board shape and packed state. Nodes are not used as keys so that the
+	 * cache does not keep their parents alive.
+	 */
+	private static final class Key {
+		final BoardLayout layout;
+		final long state;
+
+		Key(Node u) {
+			this(u.getLayout(), u.getState());
+		}
+
+		Key(BoardLayout layout, long state) {
+			this.layout = layout;
+			this.state = state;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = state * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) ^ layout.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Key) {
+				Key other = (Key) obj;
+				return state == other.state && layout == other.layout;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * The rest of a cached solution from one of the states along it
+	 */
+	private static final class Suffix {
+		final String path;
+		final int offset;
+
+		Suffix(String path, int offset) {
+			this.path = path;
+			this.offset = offset;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package search;
+
+/**
+ * Decides whether a board can reach the goal without searching. Count the
+ * inversions of a board: pairs of tiles, read in row-major order, whose numbers
+ * are out of order (the blank is ignored). A horizontal move never changes the
+ * inversions; a vertical move carries one tile past width - 1 others, changing
+ * them by an odd or even amount as the width is even or odd. So
+ * <ul>
+ * <li>for odd widths, a board is solvable iff its inversions are even;</li>
+ * <li>for even widths, iff its inversions plus the number of rows between the
+ * blank and the bottom row are even;</li>
+ * <li>for boards one cell wide or high, where tiles can never pass each other,
+ * iff there are no inversions.</li>
+ * </ul>
+ */
+public final class Solvability {
+
+	private Solvability() {}
+
+	/**
+	 * Returns true if the goal can be reached from the node's board
+	 * @param u the node to test
+	 * @return true if the puzzle is solvable, false otherwise
+	 */
+	public static boolean isSolvable(Node u) {
+		BoardLayout layout = u.getLayout();
+		if (!layout.isPacked()) {
+			return isSolvable(u.getBoard());
+		}
+		return isSolvable(layout, inversions(u.getState(), layout.getCells()), u.getBlank());
+	}
+
+	/**
+	 * Returns true if the goal can be reached from a board of any size
+	 * @param board the board, with 0 for the blank
+	 * @return true if the puzzle is solvable, false otherwise
+	 * @throws IllegalArgumentException if the board is not rectangular or does
+	 * not hold each of the tiles 0 to cells - 1 exactly once
+	 */
+	public static boolean isSolvable(int[][] board) {
+		int height = board.length;
+		int width = board[0].length;
+		int cells = width * height;
+		long[] seen = new long[(cells + 63) >>> 6];
+		long inversions = 0;
+		int blank = -1;
+		for (int i = 0; i < height; i++) {
+			if (board[i].length != width) {
+				throw new IllegalArgumentException("Board is not rectangular");
+			}
+			for (int j = 0; j < width; j++) {
+				int tile = board[i][j];
+				if (tile < 0 || tile >= cells || (seen[tile >>> 6] & (1L << tile)) != 0) {
+					throw new IllegalArgumentException("Board must hold the tiles 0 to " + (cells - 1) + " once each");
+				}
+				seen[tile >>> 6] |= 1L << tile;
+				if (tile == 0) {
+					blank = i * width + j;
+					continue;
+				}
+				// count the tiles already seen with higher numbers
+				int word = tile >>> 6;
+				inversions += Long.bitCount(seen[word] >>> tile >>> 1);
+				for (int w = word + 1; w < seen.length; w++) {
+					inversions += Long.bitCount(seen[w]);
+				}
+			}
+		}
+		return isSolvable(width, height, inversions, blank / width);
+	}
+
+	/**
+	 * Classifies many packed boards of one shape at once.
+	 * @param layout the shape of the boards, which must be packed
+	 * @param packed the packed boards, see {@link BoardLayout}
+	 * @param solvable receives, for each board, whether it is solvable
+	 * @return the number of solvable boards
+	 */
+	public static int triage(BoardLayout layout, long[] packed, boolean[] solvable) {
+		if (!layout.isPacked()) {
+			throw new IllegalArgumentException("Only packed boards can be triaged");
+		}
+		if (solvable.length < packed.length) {
+			throw new IllegalArgumentException("Result array too short");
+		}
+		int cells = layout.getCells();
+		int count = 0;
+		for (int i = 0; i < packed.length; i++) {
+			solvable[i] = isSolvable(layout, inversions(packed[i], cells), layout.findBlank(packed[i]));
+			if (solvable[i]) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the inversions of a packed board by keeping a bitmask of the tiles
+	 * seen so far: a tile forms an inversion with every higher tile before it.
+	 */
+	private static int inversions(long packed, int cells) {
+		int seen = 0;
+		int inversions = 0;
+		for (int cell = 0; cell < cells; cell++, packed >>>= BoardLayout.BITS_PER_CELL) {
+			int tile = (int) (packed & 0xF);
+			if (tile != 0) {
+				inversions += Integer.bitCount(seen >>> tile);
+				seen |= 1 << tile;
+			}
+		}
+		return inversions;
+	}
+
+	private static boolean isSolvable(BoardLayout layout, long inversions, int blank) {
+		return isSolvable(layout.getWidth(), layout.getHeight(), inversions, layout.rowOf(blank));
+	}
+
+	private static boolean isSolvable(int width, int height, long inversions, int blankRow) {
+		if (width == 1 || height == 1) {
+			return inversions == 0;
+		}
+		if (width % 2 == 1) {
+			return inversions % 2 == 0;
+		}
+		return (inversions + height - 1 - blankRow) % 2 == 0;
+	}
+}
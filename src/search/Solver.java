@@ -0,0 +1,279 @@
+package search;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import heuristic.Heuristic;
+import heuristic.LinearConflict;
+import heuristic.Manhattan;
+import heuristic.Misplaced;
+import heuristic.PatternDatabase;
+
+/**
+ * A command-line solver for servers without a display. Unlike
+ * {@link graphics.SlidingPuzzle} it draws nothing and loads no AWT classes;
+ * it reads puzzle files, or standard input, and prints one line per puzzle.
+ *
+ * Puzzles are read with {@link PuzzleReader}, so a file or stdin may hold
+ * several puzzles separated by blank lines. In the default tab-separated
+ * format each line holds the source, the index of the puzzle within it, the
+ * status (solved, unsolvable or error), the number of moves, the moves, the
+ * nodes expanded and generated and the wall time in microseconds. With
+ * {@code --format json} each line is a JSON object with the same fields.
+ *
+ * The exit status is 0 if every puzzle was read and searched, 1 if any
+ * puzzle could not be, and 2 for bad arguments.
+ */
+public final class Solver {
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java search.Solver [options] [file ...]",
+			"Solves each puzzle file, or standard input if no file or - is given.",
+			"  -s, --strategy NAME    search strategy, e.g. ASTAR (default), IDA_STAR, BFS, TABLE",
+			"  -h, --heuristic NAME   Manhattan (default), Misplaced or LinearConflict",
+			"      --pdb FILE         use the pattern database in FILE as the heuristic",
+			"      --table FILE       move table for the TABLE strategy",
+			"  -w, --weight W         heuristic weight for WEIGHTED_ASTAR and the first round of ANYTIME_ASTAR",
+			"      --budget MS        time ANYTIME_ASTAR spends improving its solution (default 50)",
+			"  -t, --threads N        worker threads for the parallel strategies",
+			"      --reopen           reopen explored states reached by a cheaper path",
+			"  -f, --format FORMAT    tsv (default) or json",
+			"      --help             print this message");
+
+	private final GraphSearch search;
+	private final boolean json;
+	private final PrintStream out;
+	private boolean failed;
+
+	private Solver(GraphSearch search, boolean json, PrintStream out) {
+		this.search = search;
+		this.json = json;
+		this.out = out;
+	}
+
+	/**
+	 * Execution entry point. Arguments are the options described by --help
+	 * followed by the puzzle files.
+	 * @param args The command-line arguments
+	 */
+	public static void main(String[] args) {
+		Strategy strategy = Strategy.ASTAR;
+		Heuristic heuristic = new Manhattan();
+		String format = "tsv";
+		int threads = 0;
+		double weight = 0;
+		long budget = -1;
+		boolean reopen = false;
+		Path table = null;
+		List<String> sources = new ArrayList<String>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				switch (arg) {
+				case "-s":
+				case "--strategy":
+					strategy = Strategy.valueOf(value(args, ++i, arg).toUpperCase());
+					break;
+				case "-h":
+				case "--heuristic":
+					heuristic = heuristic(value(args, ++i, arg));
+					break;
+				case "--pdb":
+					heuristic = PatternDatabase.load(Path.of(value(args, ++i, arg)));
+					break;
+				case "--table":
+					table = Path.of(value(args, ++i, arg));
+					break;
+				case "-w":
+				case "--weight":
+					weight = Double.parseDouble(value(args, ++i, arg));
+					break;
+				case "--budget":
+					budget = Long.parseLong(value(args, ++i, arg));
+					break;
+				case "-t":
+				case "--threads":
+					threads = Integer.parseInt(value(args, ++i, arg));
+					break;
+				case "--reopen":
+					reopen = true;
+					break;
+				case "-f":
+				case "--format":
+					format = value(args, ++i, arg);
+					if (!format.equals("tsv") && !format.equals("json")) {
+						throw new IllegalArgumentException("Unknown format " + format);
+					}
+					break;
+				case "--help":
+					System.out.println(USAGE);
+					return;
+				default:
+					if (arg.startsWith("-") && !arg.equals("-")) {
+						throw new IllegalArgumentException("Unknown option " + arg);
+					}
+					sources.add(arg);
+				}
+			}
+		}
+		catch (IllegalArgumentException | IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		GraphSearch search = new GraphSearch(strategy, heuristic);
+		search.setReopenClosed(reopen);
+		search.setCpuTimed(false);
+		if (threads > 0) {
+			search.setThreads(threads);
+		}
+		try {
+			if (weight != 0) {
+				search.setWeight(weight);
+			}
+			if (budget >= 0) {
+				search.setTimeBudget(budget);
+			}
+		}
+		catch (IllegalArgumentException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(2);
+		}
+		if (table != null) {
+			try {
+				search.setMoveTable(MoveTable.load(table));
+			}
+			catch (IOException e) {
+				System.err.println("Error: " + e.getMessage());
+				System.exit(2);
+			}
+		}
+		Solver solver = new Solver(search, format.equals("json"), System.out);
+		if (sources.isEmpty()) {
+			sources.add("-");
+		}
+		for (String source : sources) {
+			solver.solveAll(source);
+		}
+		System.out.flush();
+		System.exit(solver.failed ? 1 : 0);
+	}
+
+	/**
+	 * Solves every puzzle in a file, or in standard input if the source is "-"
+	 */
+	private void solveAll(String source) {
+		try (Reader stream = source.equals("-")
+				? new InputStreamReader(System.in, StandardCharsets.US_ASCII)
+				: Files.newBufferedReader(Path.of(source), StandardCharsets.US_ASCII)) {
+			PuzzleReader reader = new PuzzleReader(stream);
+			for (int index = 0; ; index++) {
+				int[][] puzzle;
+				try {
+					puzzle = reader.next();
+				}
+				catch (IllegalArgumentException e) {
+					// the rest of the stream cannot be trusted to line up with puzzle boundaries
+					error(source, index, e.getMessage());
+					return;
+				}
+				if (puzzle == null) {
+					return;
+				}
+				try {
+					print(source, index, search.solve(puzzle));
+				}
+				catch (RuntimeException e) {
+					error(source, index, e.getMessage());
+				}
+			}
+		}
+		catch (IOException e) {
+			error(source, 0, "cannot read " + source + ": " + e.getMessage());
+		}
+	}
+
+	private void print(String source, int index, SearchResult result) {
+		String path = result.getPath();
+		// built by hand: the first use of each string concatenation costs more than a whole solve
+		StringBuilder line = new StringBuilder(128);
+		if (json) {
+			line.append("{\"source\":").append(quote(source)).append(",\"index\":").append(index)
+					.append(",\"status\":\"").append(path == null ? "unsolvable" : "solved")
+					.append("\",\"length\":").append(path == null ? -1 : path.length())
+					.append(",\"moves\":").append(path == null ? "null" : quote(path))
+					.append(",\"expanded\":").append(result.getNodesExpanded())
+					.append(",\"generated\":").append(result.getNodesGenerated())
+					.append(",\"micros\":").append(result.getWallNanos() / 1000).append('}');
+		}
+		else {
+			line.append(source).append('\t').append(index)
+					.append('\t').append(path == null ? "unsolvable" : "solved")
+					.append('\t').append(path == null ? -1 : path.length())
+					.append('\t').append(path == null ? "-" : path)
+					.append('\t').append(result.getNodesExpanded())
+					.append('\t').append(result.getNodesGenerated())
+					.append('\t').append(result.getWallNanos() / 1000);
+		}
+		out.println(line);
+	}
+
+	private void error(String source, int index, String message) {
+		failed = true;
+		StringBuilder line = new StringBuilder(128);
+		if (json) {
+			line.append("{\"source\":").append(quote(source)).append(",\"index\":").append(index)
+					.append(",\"status\":\"error\",\"message\":").append(quote(String.valueOf(message))).append('}');
+		}
+		else {
+			line.append(source).append('\t').append(index).append("\terror\t-1\t-\t0\t0\t0");
+		}
+		out.println(line);
+		System.err.println(source + " #" + index + ": " + message);
+	}
+
+	private static String quote(String s) {
+		StringBuilder quoted = new StringBuilder(s.length() + 2).append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private static String value(String[] args, int i, String option) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException(option + " needs a value");
+		}
+		return args[i];
+	}
+
+	private static Heuristic heuristic(String name) {
+		switch (name.toLowerCase()) {
+		case "manhattan":
+			return new Manhattan();
+		case "misplaced":
+			return new Misplaced();
+		case "linearconflict":
+		case "linear-conflict":
+			return new LinearConflict();
+		default:
+			throw new IllegalArgumentException("Unknown heuristic " + name);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package search;
+
+/**
+ * The search algorithms GraphSearch can use to solve a puzzle.
+ */
+public enum Strategy {
+	/** Breadth-first graph search with a FIFO frontier. */
+	BFS,
+	/** Depth-first graph search with a LIFO frontier. */
+	DFS,
+	/** Iterative-deepening depth-first search: shortest solutions, memory linear in the solution depth. */
+	IDDFS,
+	/** A* graph search with a binary heap frontier ordered by the heuristic. */
+	ASTAR,
+	/** A* graph search with a bucket queue frontier indexed by f-cost, ties broken last-in first-out. */
+	BUCKET_ASTAR,
+	/** A* with the heuristic's estimate inflated by a weight: faster, with solutions at most weight times longer than the shortest. */
+	WEIGHTED_ASTAR,
+	/** Anytime repairing A* (ARA*): weighted A* whose weight is lowered after each solution, improving it until a time budget runs out. */
+	ANYTIME_ASTAR,
+	/** Iterative-deepening A*: depth-first search bounded by f-cost, memory linear in the solution depth. */
+	IDA_STAR,
+	/** Breadth-first search from the initial state and the goal at once, meeting in the middle. */
+	BIDIRECTIONAL_BFS,
+	/** MM bidirectional heuristic search, guided forward by the heuristic and backward by Manhattan distance to the start. */
+	BIDIRECTIONAL_ASTAR,
+	/** Hash-distributed parallel A*: each worker thread owns the states whose hash maps to it. */
+	PARALLEL_ASTAR,
+	/** Breadth-first search expanding each depth layer in parallel chunks. */
+	PARALLEL_BFS,
+	/** No search: optimal moves are looked up in a precomputed {@link MoveTable}, for boards of at most 10 cells. */
+	TABLE;
+
+	/**
+	 * Returns whether the strategy always finds a shortest solution, given an
+	 * admissible heuristic
+	 */
+	boolean isOptimal() {
+		return this != DFS && this != WEIGHTED_ASTAR && this != ANYTIME_ASTAR;
+	}
+}
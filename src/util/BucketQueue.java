@@ -0,0 +1,169 @@
+package util;
+
+import java.util.Arrays;
+
+import heuristic.Heuristic;
+import search.Node;
+
+/**
+ * A minimum priority queue for nodes whose priorities are small non-negative
+ * integers, such as the f-costs of the sliding puzzle. Nodes are kept in an
+ * array of buckets indexed by priority, so push is O(1) and pop is amortized
+ * O(1): the index of the lowest non-empty bucket only moves backwards when a
+ * node with a lower priority is pushed. Within a bucket nodes are removed
+ * last-in first-out (which favours deeper nodes among ties) or first-in
+ * first-out.
+ */
+public class BucketQueue implements OrderedCollection {
+	private static final int INITIAL_BUCKETS = 64;
+	private static final int INITIAL_BUCKET_SIZE = 16;
+
+	private final Heuristic heuristic;
+	private final boolean lifo;
+	private Node[][] buckets;
+	private int[] heads; // index of the first node of each bucket (FIFO only)
+	private int[] tails; // one past the index of the last node of each bucket
+	private int min;
+	private int size;
+
+	/**
+	 * Constructs an empty queue that removes ties last-in first-out
+	 * @param h the heuristic that assigns each node its priority
+	 */
+	public BucketQueue(Heuristic h) {
+		this(h, true);
+	}
+
+	/**
+	 * Constructs an empty queue
+	 * @param h the heuristic that assigns each node its priority
+	 * @param lifo true to remove ties last-in first-out, false for first-in first-out
+	 */
+	public BucketQueue(Heuristic h, boolean lifo) {
+		heuristic = h;
+		this.lifo = lifo;
+		buckets = new Node[INITIAL_BUCKETS][];
+		heads = new int[INITIAL_BUCKETS];
+		tails = new int[INITIAL_BUCKETS];
+		min = INITIAL_BUCKETS;
+	}
+
+	/**
+	 * Adds the node to the bucket for its priority.
+	 * @param u The node to be added
+	 */
+	@Override
+	public void push(Node u) {
+		int priority = heuristic.evaluate(u);
+		if (priority < 0) {
+			throw new IllegalArgumentException("Negative priority " + priority);
+		}
+		if (priority >= buckets.length) {
+			growBuckets(priority + 1);
+		}
+		Node[] bucket = buckets[priority];
+		if (bucket == null) {
+			bucket = new Node[INITIAL_BUCKET_SIZE];
+			buckets[priority] = bucket;
+		}
+		else if (tails[priority] == bucket.length) {
+			bucket = compactOrGrow(priority);
+		}
+		bucket[tails[priority]++] = u;
+		if (priority < min) {
+			min = priority;
+		}
+		size++;
+	}
+
+	/**
+	 * Removes a node with the lowest priority.
+	 * @return The head node in the ordered collection
+	 */
+	@Override
+	public Node pop() {
+		assert (size > 0);
+		while (heads[min] == tails[min]) {
+			min++;
+		}
+		Node[] bucket = buckets[min];
+		Node u;
+		if (lifo) {
+			u = bucket[--tails[min]];
+			bucket[tails[min]] = null;
+		}
+		else {
+			u = bucket[heads[min]];
+			bucket[heads[min]++] = null;
+			if (heads[min] == tails[min]) {
+				heads[min] = 0;
+				tails[min] = 0;
+			}
+		}
+		size--;
+		return u;
+	}
+
+	/**
+	 * Returns true if the queue is empty, false otherwise
+	 * @return True if the queue is empty, false otherwise
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of nodes in the queue
+	 * @return the number of nodes in the queue
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/*************************************************
+	 * 			Private Helper Methods
+	 *************************************************/
+
+	/**
+	 * Grows the bucket index so that it has at least the given number of buckets
+	 * @param needed the number of buckets required
+	 */
+	private void growBuckets(int needed) {
+		int length = Math.max(needed, buckets.length * 2);
+		Node[][] newBuckets = new Node[length][];
+		int[] newHeads = new int[length];
+		int[] newTails = new int[length];
+		System.arraycopy(buckets, 0, newBuckets, 0, buckets.length);
+		System.arraycopy(heads, 0, newHeads, 0, heads.length);
+		System.arraycopy(tails, 0, newTails, 0, tails.length);
+		if (min == buckets.length) {
+			min = length;
+		}
+		buckets = newBuckets;
+		heads = newHeads;
+		tails = newTails;
+	}
+
+	/**
+	 * Makes room at the end of a full bucket, either by sliding its nodes back to
+	 * the start (if nodes have been removed from the front) or by doubling it.
+	 * @param priority the index of the full bucket
+	 * @return the bucket with room for at least one more node
+	 */
+	private Node[] compactOrGrow(int priority) {
+		Node[] bucket = buckets[priority];
+		int head = heads[priority];
+		int count = tails[priority] - head;
+		Node[] target = head > bucket.length / 2 ? bucket : new Node[bucket.length * 2];
+		System.arraycopy(bucket, head, target, 0, count);
+		if (target == bucket) {
+			Arrays.fill(bucket, count, bucket.length, null);
+		}
+		buckets[priority] = target;
+		heads[priority] = 0;
+		tails[priority] = count;
+		return target;
+	}
+}
@@ -0,0 +1,62 @@
+package util;
+
+import search.BoardLayout;
+import search.Node;
+
+/**
+ * Represents the set of states a search has already explored. Nodes are
+ * compared by their board only.
+ */
+public interface ClosedSet {
+
+	/**
+	 * Adds the node's state to the set.
+	 * @param u The node to be added
+	 * @return true if the state was not already in the set
+	 */
+	public boolean add(Node u);
+
+	/**
+	 * Returns true if the node's state is in the set, false otherwise
+	 * @param u The node to look up
+	 * @return True if the state is in the set, false otherwise
+	 */
+	public boolean contains(Node u);
+
+	/**
+	 * Returns the number of states in the set
+	 * @return the number of states in the set
+	 */
+	public int size();
+
+	/**
+	 * Returns the most compact closed set for boards of the given shape: a
+	 * permutation-rank bitset for small boards, a hash set of packed states for
+	 * boards that pack into a long, and a hash set of nodes otherwise.
+	 * @param layout the shape of the boards to be stored
+	 * @return an empty closed set
+	 */
+	public static ClosedSet forLayout(BoardLayout layout) {
+		if (layout.getCells() <= PermutationRank.MAX_CELLS) {
+			return new PermutationBitSet(layout);
+		}
+		if (layout.isPacked()) {
+			return new LongHashSet();
+		}
+		return new NodeHashSet();
+	}
+
+	/**
+	 * Returns a closed set for boards of the given shape that any number of
+	 * threads can add to at once: a concurrent permutation-rank bitset for small
+	 * boards, a concurrent hash set otherwise.
+	 * @param layout the shape of the boards to be stored
+	 * @return an empty thread-safe closed set
+	 */
+	public static ClosedSet concurrentForLayout(BoardLayout layout) {
+		if (layout.getCells() <= PermutationRank.MAX_CELLS) {
+			return new ConcurrentPermutationBitSet(layout);
+		}
+		return new ConcurrentStateSet(layout);
+	}
+}
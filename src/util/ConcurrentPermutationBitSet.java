@@ -0,0 +1,63 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import search.BoardLayout;
+import search.Node;
+
+/**
+ * A thread-safe closed set for small boards holding one bit per permutation
+ * rank (see {@link PermutationRank}). Bits are set with a compare-and-set on
+ * their word, so any number of threads can add states at once without locking.
+ * Unlike {@link PermutationBitSet} the bits are allocated up front: about 30 MB
+ * for a 12 cell board.
+ */
+public class ConcurrentPermutationBitSet implements ClosedSet {
+	private final BoardLayout layout;
+	private final AtomicLongArray words;
+	private final LongAdder size = new LongAdder();
+
+	/**
+	 * Constructs an empty set for boards of the given shape
+	 * @param layout the board shape, with at most PermutationRank.MAX_CELLS cells
+	 */
+	public ConcurrentPermutationBitSet(BoardLayout layout) {
+		if (layout.getCells() > PermutationRank.MAX_CELLS) {
+			throw new IllegalArgumentException("Board too large to rank: " + layout.getCells() + " cells");
+		}
+		this.layout = layout;
+		words = new AtomicLongArray((int) ((PermutationRank.size(layout) + 63) >>> 6));
+	}
+
+	@Override
+	public boolean add(Node u) {
+		long rank = rankOf(u);
+		int word = (int) (rank >>> 6);
+		long bit = 1L << rank;
+		long old;
+		do {
+			old = words.get(word);
+			if ((old & bit) != 0) {
+				return false;
+			}
+		} while (!words.compareAndSet(word, old, old | bit));
+		size.increment();
+		return true;
+	}
+
+	@Override
+	public boolean contains(Node u) {
+		long rank = rankOf(u);
+		return (words.get((int) (rank >>> 6)) & (1L << rank)) != 0;
+	}
+
+	@Override
+	public int size() {
+		return size.intValue();
+	}
+
+	private long rankOf(Node u) {
+		return PermutationRank.rank(layout, u.getState(), u.getBlank());
+	}
+}
@@ -0,0 +1,44 @@
+package util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import search.BoardLayout;
+import search.Node;
+
+/**
+ * A thread-safe closed set backed by a concurrent hash set, for boards too
+ * large to rank into a bitset. Packed boards are stored as their packed state,
+ * larger boards as the nodes themselves.
+ */
+public class ConcurrentStateSet implements ClosedSet {
+	private final boolean packed;
+	private final Set<Object> states = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constructs an empty set for boards of the given shape
+	 * @param layout the board shape
+	 */
+	public ConcurrentStateSet(BoardLayout layout) {
+		packed = layout.isPacked();
+	}
+
+	@Override
+	public boolean add(Node u) {
+		return states.add(keyOf(u));
+	}
+
+	@Override
+	public boolean contains(Node u) {
+		return states.contains(keyOf(u));
+	}
+
+	@Override
+	public int size() {
+		return states.size();
+	}
+
+	private Object keyOf(Node u) {
+		return packed ? Long.valueOf(u.getState()) : u;
+	}
+}
@@ -0,0 +1,218 @@
+package util;
+
+import java.util.Arrays;
+
+import search.Node;
+
+/**
+ * A set of primitive longs using open addressing with linear probing. Keys are
+ * stored directly in a long array, so an entry costs 8 bytes divided by the
+ * load factor and no objects are allocated per entry. Intended as the closed
+ * set of a search, keyed by packed board states.
+ */
+public class LongHashSet implements ClosedSet {
+	public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+	public static final int DEFAULT_EXPECTED_SIZE = 1024;
+
+	// 0 marks an empty slot, so the key 0 is tracked separately
+	private static final long EMPTY = 0L;
+
+	private long[] keys;
+	private int mask;
+	private int size;
+	private int resizeAt;
+	private boolean containsEmptyKey;
+	private final float loadFactor;
+
+	/**
+	 * Constructs an empty set with the default expected size and load factor.
+	 */
+	public LongHashSet() {
+		this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Constructs an empty set sized to hold the given number of keys without
+	 * resizing, using the default load factor.
+	 * @param expectedSize the number of keys expected to be added
+	 */
+	public LongHashSet(int expectedSize) {
+		this(expectedSize, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Constructs an empty set sized to hold the given number of keys without
+	 * resizing.
+	 * @param expectedSize the number of keys expected to be added
+	 * @param loadFactor the fraction of slots that may be full before the table grows, between 0 and 1
+	 */
+	public LongHashSet(int expectedSize, float loadFactor) {
+		if (!(loadFactor > 0 && loadFactor < 1)) {
+			throw new IllegalArgumentException("Load factor must be between 0 and 1: " + loadFactor);
+		}
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+		}
+		this.loadFactor = loadFactor;
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Adds a key to the set.
+	 * @param key the key to add
+	 * @return true if the key was not already in the set
+	 */
+	public boolean add(long key) {
+		if (key == EMPTY) {
+			if (containsEmptyKey) {
+				return false;
+			}
+			containsEmptyKey = true;
+			size++;
+			return true;
+		}
+		int slot = slot(key);
+		long existing;
+		while ((existing = keys[slot]) != EMPTY) {
+			if (existing == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		if (++size > resizeAt) {
+			rehash(keys.length << 1);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean add(Node u) {
+		return add(u.getState());
+	}
+
+	@Override
+	public boolean contains(Node u) {
+		return contains(u.getState());
+	}
+
+	/**
+	 * Returns true if the key is in the set.
+	 * @param key the key to look up
+	 * @return true if the key is in the set, false otherwise
+	 */
+	public boolean contains(long key) {
+		if (key == EMPTY) {
+			return containsEmptyKey;
+		}
+		int slot = slot(key);
+		long existing;
+		while ((existing = keys[slot]) != EMPTY) {
+			if (existing == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of keys in the set
+	 * @return the number of keys in the set
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if the set is empty, false otherwise
+	 * @return true if the set contains no keys
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes every key, keeping the current table.
+	 */
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		containsEmptyKey = false;
+		size = 0;
+	}
+
+	/**
+	 * Grows the table, if necessary, so that it holds the given number of keys
+	 * without resizing again.
+	 * @param expectedSize the number of keys expected to be in the set
+	 */
+	public void ensureCapacity(int expectedSize) {
+		int capacity = capacityFor(expectedSize);
+		if (capacity > keys.length) {
+			rehash(capacity);
+		}
+	}
+
+
+	/*************************************************
+	 * 			Private Helper Methods
+	 *************************************************/
+
+	/**
+	 * Computes the home slot of a key. The key is mixed with the murmur3
+	 * finalizer so that packed boards, which differ in only a few bits, spread
+	 * across the table.
+	 * @param key a non-empty key
+	 * @return the slot to start probing at
+	 */
+	private int slot(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key & mask;
+	}
+
+	/**
+	 * Computes the power of two table length needed to hold a number of keys
+	 * @param expectedSize the number of keys
+	 * @return the table length
+	 */
+	private int capacityFor(int expectedSize) {
+		long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor);
+		if (needed > (1 << 30)) {
+			throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+		}
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+
+	/**
+	 * Allocates an empty table of the given length
+	 * @param capacity a power of two
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		resizeAt = Math.min(capacity - 1, (int) (capacity * loadFactor));
+	}
+
+	/**
+	 * Moves every key into a new table of the given length
+	 * @param capacity a power of two
+	 */
+	private void rehash(int capacity) {
+		long[] old = keys;
+		allocate(capacity);
+		for (long key : old) {
+			if (key != EMPTY) {
+				int slot = slot(key);
+				while (keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+			}
+		}
+	}
+}
@@ -42,4 +42,13 @@ public class MyStack implements OrderedCollection{
   public boolean isEmpty(){
     return stack.empty();
   }
+
+  /**
+   * Returns the number of nodes in the stack
+   * @return The number of nodes in the stack
+   */
+   @Override
+  public int size(){
+    return stack.size();
+  }
 }
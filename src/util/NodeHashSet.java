@@ -0,0 +1,29 @@
+package util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import search.Node;
+
+/**
+ * A closed set backed by a hash set of nodes, for boards too large to pack
+ * into a long. Nodes hash by their Zobrist hash and compare by their board.
+ */
+public class NodeHashSet implements ClosedSet {
+	private final Set<Node> nodes = new HashSet<Node>();
+
+	@Override
+	public boolean add(Node u) {
+		return nodes.add(u);
+	}
+
+	@Override
+	public boolean contains(Node u) {
+		return nodes.contains(u);
+	}
+
+	@Override
+	public int size() {
+		return nodes.size();
+	}
+}
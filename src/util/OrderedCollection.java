@@ -30,4 +30,10 @@ public interface OrderedCollection {
 	 * @return True if the collection is empty, false otherwise
 	 */
 	public boolean isEmpty();
+
+	/**
+	 * Returns the number of nodes in the collection
+	 * @return The number of nodes in the collection
+	 */
+	public int size();
 }
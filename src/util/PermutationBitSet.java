@@ -0,0 +1,85 @@
+package util;
+
+import search.BoardLayout;
+import search.Node;
+
+/**
+ * A closed set for small boards holding one bit per permutation rank (see
+ * {@link PermutationRank}). Lookups are a rank computation and a bit test, and
+ * the whole 3x3 state space takes about 22 KB. The bits are allocated in pages
+ * as they are first touched, so larger boards only pay for the part of the
+ * space a search visits.
+ */
+public class PermutationBitSet implements ClosedSet {
+	private static final int PAGE_SHIFT = 10; // 1024 words, 64K bits per page
+	private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+	private final BoardLayout layout;
+	private final long[][] pages;
+	private int size;
+
+	/**
+	 * Constructs an empty set for boards of the given shape
+	 * @param layout the board shape, with at most PermutationRank.MAX_CELLS cells
+	 */
+	public PermutationBitSet(BoardLayout layout) {
+		if (layout.getCells() > PermutationRank.MAX_CELLS) {
+			throw new IllegalArgumentException("Board too large to rank: " + layout.getCells() + " cells");
+		}
+		this.layout = layout;
+		long words = (PermutationRank.size(layout) + 63) >>> 6;
+		pages = new long[(int) ((words + PAGE_MASK) >>> PAGE_SHIFT)][];
+	}
+
+	@Override
+	public boolean add(Node u) {
+		return add(rankOf(u));
+	}
+
+	@Override
+	public boolean contains(Node u) {
+		return contains(rankOf(u));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Sets the bit for a rank
+	 * @param rank a permutation rank
+	 * @return true if the bit was not already set
+	 */
+	public boolean add(long rank) {
+		int word = (int) (rank >>> 6);
+		long[] page = pages[word >>> PAGE_SHIFT];
+		if (page == null) {
+			page = new long[1 << PAGE_SHIFT];
+			pages[word >>> PAGE_SHIFT] = page;
+		}
+		long bit = 1L << rank;
+		long old = page[word & PAGE_MASK];
+		if ((old & bit) != 0) {
+			return false;
+		}
+		page[word & PAGE_MASK] = old | bit;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Returns true if the bit for a rank is set
+	 * @param rank a permutation rank
+	 * @return true if the bit is set, false otherwise
+	 */
+	public boolean contains(long rank) {
+		int word = (int) (rank >>> 6);
+		long[] page = pages[word >>> PAGE_SHIFT];
+		return page != null && (page[word & PAGE_MASK] & (1L << rank)) != 0;
+	}
+
+	private long rankOf(Node u) {
+		return PermutationRank.rank(layout, u.getState(), u.getBlank());
+	}
+}
@@ -0,0 +1,66 @@
+package util;
+
+import search.BoardLayout;
+
+/**
+ * Ranks packed boards to dense integers. A board is ranked by the cell of its
+ * blank and the Lehmer code of the remaining tiles read in row-major order.
+ * For a fixed blank cell, only tile orders of one permutation parity are
+ * reachable from a given board, so the last Lehmer digit is redundant and is
+ * dropped: the ranks of one connected component of the state space cover
+ * cells * (cells-1)!/2 values, e.g. 181,440 for the 3x3 board.
+ */
+public final class PermutationRank {
+	/** Largest number of cells for which ranks fit comfortably in memory as a bitset. */
+	public static final int MAX_CELLS = 12;
+
+	private PermutationRank() {}
+
+	/**
+	 * Returns the number of distinct ranks for boards of the given shape
+	 * @param layout the board shape
+	 * @return one more than the largest possible rank
+	 */
+	public static long size(BoardLayout layout) {
+		return layout.getCells() * perBlank(layout.getCells());
+	}
+
+	/**
+	 * Ranks a packed board
+	 * @param layout the board shape, with at most MAX_CELLS cells
+	 * @param packed the packed board
+	 * @param blank the cell holding the blank
+	 * @return the rank, between 0 and size(layout) - 1
+	 */
+	public static long rank(BoardLayout layout, long packed, int blank) {
+		int cells = layout.getCells();
+		int tiles = cells - 1;
+		long rank = 0;
+		int seen = 0;
+		int i = 0;
+		for (int cell = 0; cell < cells; cell++, packed >>>= BoardLayout.BITS_PER_CELL) {
+			int tile = (int) (packed & 0xF);
+			if (tile != 0) {
+				// tiles are 1..tiles, so tile - 1 is the value being ranked
+				int digit = tile - 1 - Integer.bitCount(seen & ((1 << (tile - 1)) - 1));
+				seen |= 1 << (tile - 1);
+				rank = rank * (tiles - i) + digit;
+				i++;
+			}
+		}
+		return blank * perBlank(cells) + (rank >> 1);
+	}
+
+	/**
+	 * Returns the number of ranks for each position of the blank
+	 * @param cells the number of cells
+	 * @return (cells-1)!/2, or 1 for boards with fewer than three cells
+	 */
+	private static long perBlank(int cells) {
+		long factorial = 1;
+		for (int i = 2; i < cells; i++) {
+			factorial *= i;
+		}
+		return Math.max(1, factorial / 2);
+	}
+}
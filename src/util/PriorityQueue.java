@@ -35,24 +35,32 @@ public class PriorityQueue implements OrderedCollection {
 
 	/**
 	 *  Insert a new element into the queue with the
-	 *  given priority.
+	 *  given priority. If an element with the same board is already
+	 *  in the queue, only the cheaper of the two is kept: a cheaper
+	 *  element replaces the queued one and is moved up the heap
+	 *  (decrease-key), a more expensive one is discarded.
 	 *
-	 *	@param priority priority of element to be inserted
 	 *	@param element element to be inserted
 	 *
-	 *	<dt><b>Preconditions:</b><dd>
-	 *	<ul>
-	 *	<li> The element does not already appear in the priority queue.</li>
-	 *	</ul>
-	 *
 	 */
 	@Override
 	public void push(Node element) {
-		// element must be unique
-		assert(!location.containsKey(element));
-
 		int priority = heuristic.evaluate(element);
 
+		Integer index = location.get(element);
+		if (index != null) {
+			Pair<Integer, Node> queued = heap.get(index);
+			if (priority < queued.priority) {
+				// replace the key too, so the map does not keep the old node alive
+				location.remove(queued.element);
+				queued.priority = priority;
+				queued.element = element;
+				location.put(element, index);
+				percolateUp(index);
+			}
+			return;
+		}
+
 		// add the new element to the end of the list
 		heap.add(new Pair<Integer,Node>(priority, element));
 		location.put(element,heap.size()-1);
@@ -70,20 +78,20 @@ public class PriorityQueue implements OrderedCollection {
 		assert (heap.size() > 0);
 
 		Node element = heap.get(0).element;
-		int priority = heap.get(0).priority;
 
 		// remove element from hash map
 		location.remove(element);
 
-		// copy leaf node to root
-		heap.set(0, heap.get(heap.size()-1));
-		location.put(heap.get(0).element, 0);
-
-		// now we can remove leaf node from heap
-		heap.remove(heap.size()-1);
+		// remove leaf node from heap
+		Pair<Integer, Node> leaf = heap.remove(heap.size()-1);
 
-		// push new root down to proper place
-		pushDownRoot();
+		// unless the root was the leaf, copy leaf node to root and
+		// push it down to proper place
+		if (heap.size() > 0) {
+			heap.set(0, leaf);
+			location.put(leaf.element, 0);
+			pushDownRoot();
+		}
 
 		return element;
 	}
@@ -97,6 +105,45 @@ public class PriorityQueue implements OrderedCollection {
 		return heap.size() == 0;
 	}
 
+	/**
+	 *  Returns the number of elements in the priority queue
+	 *  @return the number of elements in the queue
+	 */
+	public int size() {
+		return heap.size();
+	}
+
+	/**
+	 *  Returns the priority of the highest priority element
+	 *  @return the smallest priority in the queue
+	 */
+	public int minPriority() {
+		// heap must be non-empty
+		assert (heap.size() > 0);
+		return heap.get(0).priority;
+	}
+
+	/**
+	 *  Returns the elements of the priority queue, in no particular order
+	 *  @return a new list holding every queued element
+	 */
+	public List<Node> elements() {
+		List<Node> elements = new ArrayList<Node>(heap.size());
+		for (Pair<Integer, Node> pair : heap) {
+			elements.add(pair.element);
+		}
+		return elements;
+	}
+
+	/**
+	 *  Returns true if an element with the same board is in the priority queue
+	 *  @param element the element to look up
+	 *  @return true if the queue contains the element, false otherwise
+	 */
+	public boolean contains(Node element) {
+		return location.containsKey(element);
+	}
+
 
 	/*************************************************
 	 * 			Private Helper Methods
@@ -40,5 +40,14 @@ public class Queue implements OrderedCollection{
      @Override
   	public boolean isEmpty(){
       return queue.isEmpty();
+    }
+
+  	/**
+  	 * Returns the number of nodes in the queue
+  	 * @return The number of nodes in the queue
+  	 */
+     @Override
+  	public int size(){
+      return queue.size();
     }
   }
@@ -0,0 +1,99 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table remembering, for each state, the largest remaining depth
+ * from which a depth-limited search below it has already failed. A search that
+ * reaches the state again with no more depth to spare can skip it. Keys must
+ * identify states exactly, e.g. packed boards.
+ *
+ * Slots are grouped in pairs. A key lives in one of the two slots of the pair
+ * its hash selects; when both hold other keys, the entry with less remaining
+ * depth (the cheaper subtree to search again) is replaced. Memory never grows
+ * beyond the capacity given at construction.
+ */
+public class TranspositionTable {
+	/** The largest remaining depth an entry records; deeper failures are recorded as this. */
+	public static final int MAX_DEPTH = Byte.MAX_VALUE;
+
+	private final long[] keys;
+	private final byte[] depths; // 0 marks an empty slot
+	private final int mask;
+
+	/**
+	 * Constructs an empty table
+	 * @param capacity the number of entries, rounded up to a power of two of at least 2
+	 */
+	public TranspositionTable(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+		}
+		int slots = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+		keys = new long[slots];
+		depths = new byte[slots];
+		mask = slots - 2;
+	}
+
+	/**
+	 * Returns the remaining depth from which a search below the state failed
+	 * @param key the state
+	 * @return the recorded depth, or 0 if the state has no entry
+	 */
+	public int get(long key) {
+		int slot = slotOf(key);
+		if (depths[slot] != 0 && keys[slot] == key) {
+			return depths[slot];
+		}
+		slot++;
+		if (depths[slot] != 0 && keys[slot] == key) {
+			return depths[slot];
+		}
+		return 0;
+	}
+
+	/**
+	 * Records that a search below the state with the given remaining depth
+	 * failed. An existing entry for the state keeps the larger depth.
+	 * @param key the state
+	 * @param depth the remaining depth, at least 1
+	 */
+	public void put(long key, int depth) {
+		byte d = (byte) Math.min(depth, MAX_DEPTH);
+		int slot = slotOf(key);
+		int victim = slot;
+		for (int i = slot; i <= slot + 1; i++) {
+			if (depths[i] != 0 && keys[i] == key) {
+				if (d > depths[i]) {
+					depths[i] = d;
+				}
+				return;
+			}
+			if (depths[i] < depths[victim]) {
+				victim = i;
+			}
+		}
+		keys[victim] = key;
+		depths[victim] = d;
+	}
+
+	/**
+	 * Removes every entry
+	 */
+	public void clear() {
+		Arrays.fill(depths, (byte) 0);
+	}
+
+	/**
+	 * Returns the number of entries the table can hold
+	 * @return the number of slots
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+
+	private int slotOf(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & mask;
+	}
+}